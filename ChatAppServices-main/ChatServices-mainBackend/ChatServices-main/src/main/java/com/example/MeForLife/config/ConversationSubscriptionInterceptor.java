@@ -0,0 +1,89 @@
+package com.example.MeForLife.config;
+
+import com.example.MeForLife.repo.ConversationRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies the STOMP user from the "username" header sent with CONNECT and only lets
+ * participants of a conversation subscribe to its topic ("/topic/conversation.{id}"). Per-user
+ * queues such as export notifications can only be subscribed to as "/user/queue/...". Nothing
+ * else can be subscribed to, and since the simple broker matches subscriptions as patterns,
+ * destinations containing '*', '?' or '{' are always rejected. Clients may
+ * only SEND to the application prefix ("/app/..."), never straight to a broker destination, so
+ * every chat message goes through the participant check and persistence in the controller.
+ */
+@Component
+public class ConversationSubscriptionInterceptor implements ChannelInterceptor {
+
+    public static final String CONVERSATION_TOPIC_PREFIX = "/topic/conversation.";
+    public static final String APPLICATION_PREFIX = "/app/";
+
+    private static final Pattern CONVERSATION_TOPIC = Pattern.compile("/topic/conversation\\.(\\d{1,18})");
+    private static final String USER_QUEUE_PREFIX = "/user/queue/";
+
+    @Autowired
+    private ConversationRepo crepo;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String username = accessor.getFirstNativeHeader("username");
+            if (username == null) {
+                username = accessor.getLogin();
+            }
+            if (username != null && !username.isBlank()) {
+                String name = username.trim();
+                accessor.setUser(() -> name);
+            }
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            checkSubscription(accessor.getUser(), accessor.getDestination());
+        } else if (StompCommand.SEND.equals(accessor.getCommand())) {
+            String destination = accessor.getDestination();
+            if (destination == null || !destination.startsWith(APPLICATION_PREFIX)) {
+                throw new MessageDeliveryException("Messages can only be sent to " + APPLICATION_PREFIX + "...");
+            }
+        }
+        return message;
+    }
+
+    private void checkSubscription(Principal user, String destination) {
+        if (destination == null || destination.chars().anyMatch(c -> c == '*' || c == '?' || c == '{')) {
+            throw new MessageDeliveryException("Cannot subscribe to pattern " + destination);
+        }
+        Matcher conversation = CONVERSATION_TOPIC.matcher(destination);
+        if (conversation.matches()) {
+            checkParticipant(user, Long.valueOf(conversation.group(1)));
+        } else if (destination.startsWith("/queue/")) {
+            // per-user queues are only reachable through their /user/queue/... alias
+            throw new MessageDeliveryException("Subscribe to /user" + destination + " instead");
+        } else if (!destination.startsWith(USER_QUEUE_PREFIX) || destination.length() == USER_QUEUE_PREFIX.length()) {
+            throw new MessageDeliveryException("Cannot subscribe to " + destination);
+        }
+    }
+
+    private void checkParticipant(Principal user, Long conversationId) {
+        if (user == null) {
+            throw new MessageDeliveryException("Subscribing to conversation " + conversationId + " requires a username");
+        }
+        if (!crepo.isParticipant(conversationId, user.getName())) {
+            throw new MessageDeliveryException(user.getName() + " is not part of conversation " + conversationId);
+        }
+    }
+}
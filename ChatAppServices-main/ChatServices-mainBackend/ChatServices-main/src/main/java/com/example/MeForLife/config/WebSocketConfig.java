@@ -1,7 +1,9 @@
 package com.example.MeForLife.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -13,10 +15,13 @@ import org.springframework.web.socket.server.standard.ServletServerContainerFact
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private ConversationSubscriptionInterceptor conversationSubscriptionInterceptor;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Prefix for subscriptions (topics)
-        config.enableSimpleBroker("/topic");
+        // Prefix for subscriptions (topics, and per-user queues under /user/queue)
+        config.enableSimpleBroker("/topic", "/queue");
 
         // Prefix for sending messages from client
         config.setApplicationDestinationPrefixes("/app");
@@ -31,6 +36,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .withSockJS(); // fallback for non-WebSocket clients
 
     }
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // identifies the user on CONNECT and checks conversation topic subscriptions
+        registration.interceptors(conversationSubscriptionInterceptor);
+    }
+
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registry) {
         // default is around 64 * 1024 bytes (64 KB)
@@ -1,33 +1,48 @@
 package com.example.MeForLife.controller;
 
 
+import com.example.MeForLife.config.ConversationSubscriptionInterceptor;
 import com.example.MeForLife.entity.AuthResponse;
 import com.example.MeForLife.entity.Conversation;
+import com.example.MeForLife.entity.ExportJob;
+import com.example.MeForLife.entity.MessageView;
 import com.example.MeForLife.entity.Messages;
 import com.example.MeForLife.entity.User;
 import com.example.MeForLife.repo.ConversationRepo;
 import com.example.MeForLife.repo.MessagesRepo;
 import com.example.MeForLife.repo.UserRepository;
-import com.example.MeForLife.services.ChatExportService;
-import com.example.MeForLife.services.EmailService;
+import com.example.MeForLife.services.BlobStore;
+import com.example.MeForLife.services.ChatImageService;
+import com.example.MeForLife.services.ExportJobService;
+import com.example.MeForLife.services.MessageHistoryService;
+import com.example.MeForLife.services.MessageWriteBehindService;
 import com.example.MeForLife.services.UserService;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.web.bind.annotation.*;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.Principal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @CrossOrigin(origins = "*") // allow requests from React Native
@@ -43,9 +58,15 @@ public class AuthController {
     @Autowired
     private MessagesRepo mrepo;
     @Autowired
-    private ChatExportService chatExportService;
+    private SimpMessagingTemplate messagingTemplate;
     @Autowired
-    private EmailService emailService;
+    private MessageWriteBehindService messageWriter;
+    @Autowired
+    private ChatImageService chatImageService;
+    @Autowired
+    private MessageHistoryService messageHistoryService;
+    @Autowired
+    private ExportJobService exportJobService;
     @PostMapping("/signup")
     public String registerUser(@RequestBody User user) {
         return userService.registerUser(user);
@@ -63,6 +84,7 @@ public class AuthController {
         Optional<String> userlist=urepo.getUserNname(conv.getReceiver());
         conv.setReceiver(userlist.get());
         conv.setDateTime(LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")));
+        conv.setCreatedAt(Instant.now());
 
         crepo.save(conv);
         List<Conversation> getRConv=crepo.getRecentConvIDByDate(conv.getSender());
@@ -81,103 +103,109 @@ public class AuthController {
     }
 
     @MessageMapping("/chat.sendMessage") // when client sends to /app/chat.sendMessage
-    @SendTo("/topic/public")             // broadcast to all subscribers
-    public Messages sendMessage(@RequestBody  Messages chatMessage) {
-        System.out.println("chatMessage " +chatMessage.getChatimage());
+    public void sendMessage(@RequestBody  Messages chatMessage, Principal principal) throws IOException {
+        // the username given on CONNECT is who is sending, whatever the payload claims
+        if (principal != null) {
+            chatMessage.setSender(principal.getName());
+        }
+        if (chatMessage.getSender() == null
+                || !crepo.isParticipant(chatMessage.getConversationID(), chatMessage.getSender())) {
+            throw new MessageDeliveryException(chatMessage.getSender() + " is not part of conversation "
+                    + chatMessage.getConversationID());
+        }
 
                 chatMessage.setDateTime(LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")));
                 chatMessage.setChatTime(LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm")));
-                mrepo.save(chatMessage);
+                chatMessage.setSentAt(Instant.now());
+                // images go to the blob store, the message and its broadcast carry the reference only
+                chatImageService.externalize(chatMessage);
+                // journaled now, inserted in the next batch
+                messageWriter.submit(chatMessage);
                 chatMessage.setDateTime(null);
-        return chatMessage;
+        // only subscribers of this conversation's topic (its participants) receive the message
+        messagingTemplate.convertAndSend(
+                ConversationSubscriptionInterceptor.CONVERSATION_TOPIC_PREFIX + chatMessage.getConversationID(),
+                chatMessage);
+    }
+
+    // a chat message that was not accepted; only the sending session is told why
+    @MessageExceptionHandler({RejectedExecutionException.class, BlobStore.TooLargeException.class,
+            MessageDeliveryException.class})
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, String> chatMessageRejected(Exception e) {
+        return Map.of("error", e.getMessage());
     }
 
     @PostMapping("/sendImage")
-    public Messages sendImage(@RequestBody  Messages chatMessage) {
-        System.out.println("chatMessage " +chatMessage.getChatimage());
+    public ResponseEntity<Messages> sendImage(@RequestBody  Messages chatMessage) throws IOException {
         chatMessage.setDateTime(LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")));
         chatMessage.setChatTime(LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm")));
-        mrepo.save(chatMessage);
+        chatMessage.setSentAt(Instant.now());
+        try {
+            chatImageService.externalize(chatMessage);
+        } catch (BlobStore.TooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        try {
+            messageWriter.submit(chatMessage);
+        } catch (RejectedExecutionException e) {
+            // the database is behind; the client sends again later
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
         chatMessage.setDateTime(null);
-        return chatMessage;
+        return ResponseEntity.ok(chatMessage);
     }
+    // newest page first; pass the oldest messageID received as "before" to load older messages
     @GetMapping("/getPvtMessages")
-   public List<Messages> getMessagesByConvID(@RequestParam String Convid){
-        System.out.println("getMessagesByConvID "+Convid);
-        List<Messages> mesgList=mrepo.getConvsByID(Convid);
-        String checkDate="";
-        for (int i=0; i<mesgList.size(); i++){
-
-            if (checkDate.equalsIgnoreCase(mesgList.get(i).getDateTime().trim())){
-
-                mesgList.get(i).setDateTime(null);
-            }
-            else {
-                checkDate=mesgList.get(i).getDateTime().trim();
-            }
-        }
-    return mesgList ;
-   }
+    public List<MessageView> getMessagesByConvID(@RequestParam String Convid,
+                                                 @RequestParam(required = false) Long before,
+                                                 @RequestParam(required = false) Integer limit){
+        return messageHistoryService.page(Long.valueOf(Convid), before, limit);
+    }
 
+    // rendered by the export workers; the request thread is released while the job runs
     @GetMapping("/chat-image")
-    public ResponseEntity<byte[]> exportChat(
+    public CompletableFuture<ResponseEntity<Resource>> exportChat(
             @RequestParam Long conversationID,
             @RequestParam String date,
             @RequestParam String loggedUser
     ) {
-        try {
-            Optional<String> userlist=urepo.getEmailByUser(loggedUser);
-            BufferedImage img =
-                    chatExportService.exportChatImage(conversationID, date, "chat1", loggedUser);
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(img, "png", baos);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_PNG);
-
-// 2. Email the export
-            String subject = "Chat Export - " + System.currentTimeMillis();
-
-            emailService.sendChatExportEmail(
-                    userlist.get(),
-                    subject,
-                    "Your exported chat is attached."+subject,
-                    baos.toByteArray(),
-                    subject+".png"
-            );
-            return new ResponseEntity<>(baos.toByteArray(), headers, HttpStatus.OK);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
-        }
+        return awaitExport("png", conversationID, date, loggedUser, true);
     }
 
     @GetMapping("/chat-pdf")
-    public ResponseEntity<byte[]> exportChatPDF(
+    public CompletableFuture<ResponseEntity<Resource>> exportChatPDF(
             @RequestParam Long conversationID,
             @RequestParam String date,
             @RequestParam String loggedUser
     ) {
-        try {
-            BufferedImage chatImage = chatExportService.exportChatImage(
-                    conversationID, date, "chat1", loggedUser
-            );
-
-            byte[] pdfBytes = chatExportService.convertImageToPDF(chatImage);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.set(HttpHeaders.CONTENT_DISPOSITION,
-                    "attachment; filename=chat_export.pdf");
-
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+        return awaitExport("pdf", conversationID, date, loggedUser, false);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
+    private CompletableFuture<ResponseEntity<Resource>> awaitExport(String format, Long conversationID, String date,
+                                                                  String loggedUser, boolean email) {
+        ExportJob job;
+        try {
+            job = exportJobService.submit(format, conversationID, date, loggedUser, email);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5").<Resource>build());
         }
+        return exportJobService.completion(job.getId()).thenApply(done -> {
+            Optional<Path> file = exportJobService.result(done.getId());
+            if (file.isEmpty()) {
+                return ResponseEntity.internalServerError().<Resource>build();
+            }
+            HttpHeaders headers = new HttpHeaders();
+            if ("pdf".equals(format)) {
+                headers.setContentType(MediaType.APPLICATION_PDF);
+                headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=chat_export.pdf");
+            } else {
+                headers.setContentType(MediaType.IMAGE_PNG);
+            }
+            // streamed from disk in chunks, the export is never copied into a byte[]
+            return new ResponseEntity<Resource>(new FileSystemResource(file.get()), headers, HttpStatus.OK);
+        });
     }
 
 }
@@ -0,0 +1,28 @@
+package com.example.MeForLife.controller;
+
+import com.example.MeForLife.services.BackgroundRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+@RestController
+@CrossOrigin(origins = "*")
+public class BackgroundController {
+
+    @Autowired
+    private BackgroundRegistry backgroundRegistry;
+
+    @GetMapping("/backgrounds")
+    public List<String> list() {
+        return backgroundRegistry.keys();
+    }
+
+    // picks up backgrounds added to or replaced in meforlife.backgrounds.dir without a restart
+    @PostMapping("/backgrounds/reload")
+    public List<String> reload() throws IOException {
+        backgroundRegistry.reload();
+        return backgroundRegistry.keys();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.MeForLife.controller;
+
+import com.example.MeForLife.entity.Messages;
+import com.example.MeForLife.repo.MessagesRepo;
+import com.example.MeForLife.services.BlobStore;
+import com.example.MeForLife.services.ChatImageService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@CrossOrigin(origins = "*")
+public class BlobController {
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @Autowired
+    private ChatImageService chatImageService;
+
+    // raw request body is streamed into the store, never buffered in memory
+    @PostMapping("/blobs")
+    public ResponseEntity<Map<String, String>> upload(HttpServletRequest request) throws IOException {
+        try {
+            String ref = blobStore.put(request.getInputStream());
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("ref", ref));
+        } catch (BlobStore.TooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // blobs never change, so clients and proxies may cache them for good
+    @GetMapping("/blobs/{ref}")
+    public ResponseEntity<Resource> download(@PathVariable String ref,
+                                             @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch)
+            throws IOException {
+        Optional<Path> blob = blobStore.find(ref);
+        if (blob.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+        if (ifNoneMatch != null && ifNoneMatch.contains(ref)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ref).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(ref)
+                .cacheControl(cacheControl)
+                .contentType(contentType(blob.get()))
+                .contentLength(Files.size(blob.get()))
+                .body(new FileSystemResource(blob.get()));
+    }
+
+    // image of a single message; inline base64 of rows not migrated yet is decoded while streaming
+    @GetMapping("/messages/{messageId}/image")
+    public ResponseEntity<Resource> messageImage(@PathVariable Long messageId) throws IOException {
+        Optional<Messages> message = mrepo.findById(messageId);
+        if (message.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String ref = message.get().getChatimageRef();
+        if (ref != null) {
+            return ResponseEntity.status(HttpStatus.FOUND).location(URI.create("/blobs/" + ref)).build();
+        }
+        Optional<InputStream> inline = chatImageService.openInline(message.get());
+        if (inline.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        InputStream in = new BufferedInputStream(inline.get());
+        MediaType type;
+        try {
+            type = contentType(in);
+        } catch (IOException e) {
+            // not valid base64, there is no image to show
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().contentType(type).body(new InputStreamResource(in));
+    }
+
+    private MediaType contentType(Path blob) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(blob))) {
+            return contentType(in);
+        }
+    }
+
+    // reads the first bytes of a stream that supports mark/reset
+    private MediaType contentType(InputStream in) throws IOException {
+        String guessed = URLConnection.guessContentTypeFromStream(in);
+        return guessed != null ? MediaType.parseMediaType(guessed) : MediaType.APPLICATION_OCTET_STREAM;
+    }
+}
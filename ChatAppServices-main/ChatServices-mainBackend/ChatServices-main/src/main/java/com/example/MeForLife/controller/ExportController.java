@@ -0,0 +1,70 @@
+package com.example.MeForLife.controller;
+
+import com.example.MeForLife.entity.ExportJob;
+import com.example.MeForLife.services.ExportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Background chat exports: submit a job, poll its status (or wait for the notification on
+ * {@code /user/queue/exports}) and download the file once it is done.
+ */
+@RestController
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @PostMapping("/exports")
+    public ResponseEntity<ExportJob> submit(@RequestParam Long conversationID,
+                                            @RequestParam String date,
+                                            @RequestParam String loggedUser,
+                                            @RequestParam(defaultValue = "pdf") String format,
+                                            @RequestParam(defaultValue = "false") boolean email) {
+        ExportJob job;
+        try {
+            job = exportJobService.submit(format, conversationID, date, loggedUser, email);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return ResponseEntity.accepted().location(URI.create("/exports/" + job.getId())).body(job);
+    }
+
+    @GetMapping("/exports/{id}")
+    public ResponseEntity<ExportJob> status(@PathVariable String id) {
+        return ResponseEntity.of(exportJobService.find(id));
+    }
+
+    @GetMapping("/exports/{id}/file")
+    public ResponseEntity<Resource> file(@PathVariable String id) {
+        Optional<ExportJob> job = exportJobService.find(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Optional<Path> file = exportJobService.result(id);
+        if (file.isEmpty()) {
+            // still running or failed; the status tells which
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        boolean pdf = "pdf".equals(job.get().getFormat());
+        return ResponseEntity.ok()
+                .contentType(pdf ? MediaType.APPLICATION_PDF : MediaType.IMAGE_PNG)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=chat_export." + job.get().getFormat())
+                .body(new FileSystemResource(file.get()));
+    }
+}
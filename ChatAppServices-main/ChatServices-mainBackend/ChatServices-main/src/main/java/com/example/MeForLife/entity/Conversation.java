@@ -3,6 +3,8 @@ package com.example.MeForLife.entity;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity
 @Table(name = "conversation")
 public class Conversation {
@@ -16,6 +18,8 @@ public class Conversation {
     private String receiver;
     @Column(name = "dateTime")
     private String dateTime;
+    @Column(name = "created_at")
+    private Instant createdAt;
 
     public Conversation() {
     }
@@ -58,4 +62,12 @@ public class Conversation {
     public void setDateTime(String dateTime) {
         this.dateTime = dateTime;
     }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
 }
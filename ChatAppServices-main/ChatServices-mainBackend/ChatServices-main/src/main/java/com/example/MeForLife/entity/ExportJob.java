@@ -0,0 +1,116 @@
+package com.example.MeForLife.entity;
+
+import java.time.Instant;
+
+/**
+ * State of a background chat export, as returned to clients polling {@code /exports/{id}} and
+ * pushed to the owner on {@code /user/queue/exports}.
+ */
+public class ExportJob {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private String id;
+    private String format;
+    private Long conversationID;
+    private String date;
+    private String loggedUser;
+    private volatile Status status;
+    private volatile String error;
+    private volatile long size;
+    private Instant createdAt;
+    private volatile Instant finishedAt;
+
+    public ExportJob() {
+    }
+
+    public ExportJob(String id, String format, Long conversationID, String date, String loggedUser) {
+        this.id = id;
+        this.format = format;
+        this.conversationID = conversationID;
+        this.date = date;
+        this.loggedUser = loggedUser;
+        this.status = Status.QUEUED;
+        this.createdAt = Instant.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public Long getConversationID() {
+        return conversationID;
+    }
+
+    public void setConversationID(Long conversationID) {
+        this.conversationID = conversationID;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public void setDate(String date) {
+        this.date = date;
+    }
+
+    public String getLoggedUser() {
+        return loggedUser;
+    }
+
+    public void setLoggedUser(String loggedUser) {
+        this.loggedUser = loggedUser;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
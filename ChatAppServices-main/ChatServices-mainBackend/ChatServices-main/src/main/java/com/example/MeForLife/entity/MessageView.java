@@ -0,0 +1,127 @@
+package com.example.MeForLife.entity;
+
+import java.time.Instant;
+
+/**
+ * Chat message as listed in a conversation: metadata and the image reference, never the image
+ * itself. Rows whose image is still inline in the {@code chatimage} column have no reference but
+ * {@code hasInlineImage} set; clients load those from {@code /messages/{messageID}/image}.
+ * {@code dateTime} is only set on the first message of each day, where clients draw a date
+ * separator.
+ */
+public class MessageView {
+    private Long messageID;
+    private String content;
+    private String sender;
+    private String receiver;
+    private String dateTime;
+    private Instant sentAt;
+    private Long conversationID;
+    private String chatTime;
+    private String chatimageRef;
+    private boolean hasInlineImage;
+
+    public MessageView() {
+    }
+
+    public MessageView(Long messageID, String content, String sender, String receiver, String dateTime,
+                       Instant sentAt, Long conversationID, String chatTime, String chatimageRef,
+                       boolean hasInlineImage) {
+        this.messageID = messageID;
+        this.content = content;
+        this.sender = sender;
+        this.receiver = receiver;
+        this.dateTime = dateTime;
+        this.sentAt = sentAt;
+        this.conversationID = conversationID;
+        this.chatTime = chatTime;
+        this.chatimageRef = chatimageRef;
+        this.hasInlineImage = hasInlineImage;
+    }
+
+    public static MessageView of(Messages message) {
+        return new MessageView(message.getMessageID(), message.getcontent(), message.getSender(),
+                message.getReceiver(), message.getDateTime(), message.getSentAt(), message.getConversationID(),
+                message.getChatTime(), message.getChatimageRef(), message.getChatimage() != null);
+    }
+
+    public Long getMessageID() {
+        return messageID;
+    }
+
+    public void setMessageID(Long messageID) {
+        this.messageID = messageID;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+
+    public String getReceiver() {
+        return receiver;
+    }
+
+    public void setReceiver(String receiver) {
+        this.receiver = receiver;
+    }
+
+    public String getDateTime() {
+        return dateTime;
+    }
+
+    public void setDateTime(String dateTime) {
+        this.dateTime = dateTime;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Instant sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public Long getConversationID() {
+        return conversationID;
+    }
+
+    public void setConversationID(Long conversationID) {
+        this.conversationID = conversationID;
+    }
+
+    public String getChatTime() {
+        return chatTime;
+    }
+
+    public void setChatTime(String chatTime) {
+        this.chatTime = chatTime;
+    }
+
+    public String getChatimageRef() {
+        return chatimageRef;
+    }
+
+    public void setChatimageRef(String chatimageRef) {
+        this.chatimageRef = chatimageRef;
+    }
+
+    public boolean isHasInlineImage() {
+        return hasInlineImage;
+    }
+
+    public void setHasInlineImage(boolean hasInlineImage) {
+        this.hasInlineImage = hasInlineImage;
+    }
+}
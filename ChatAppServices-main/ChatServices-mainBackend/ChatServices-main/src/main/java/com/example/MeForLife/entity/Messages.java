@@ -3,8 +3,13 @@ package com.example.MeForLife.entity;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_conversation_message", columnList = "conversationID, messageID"),
+        @Index(name = "idx_messages_conversation_sent_at", columnList = "conversationID, sent_at")
+})
 public class Messages {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -17,12 +22,18 @@ public class Messages {
     private String receiver;
     @Column(name = "dateTime")
     private String  dateTime;
+    // when the message was sent; dateTime and chatTime are its display strings
+    @Column(name = "sent_at")
+    private Instant sentAt;
     @Column(name = "conversationID")
     private Long conversationID;
     @Column(name = "chatTime")
     private String chatTime;
     @Column(name = "chatimage" , columnDefinition = "LONGTEXT")
     private String chatimage;
+    // SHA-256 reference into the blob store; chatimage is only set on rows not migrated yet
+    @Column(name = "chatimage_ref", length = 64)
+    private String chatimageRef;
 
 
 
@@ -57,6 +68,14 @@ public class Messages {
         this.chatimage = chatimage;
     }
 
+    public String getChatimageRef() {
+        return chatimageRef;
+    }
+
+    public void setChatimageRef(String chatimageRef) {
+        this.chatimageRef = chatimageRef;
+    }
+
     public Long getMessageID() {
         return messageID;
     }
@@ -97,6 +116,14 @@ public class Messages {
         this.dateTime = dateTime;
     }
 
+    public Instant getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Instant sentAt) {
+        this.sentAt = sentAt;
+    }
+
     public Long getConversationID() {
         return conversationID;
     }
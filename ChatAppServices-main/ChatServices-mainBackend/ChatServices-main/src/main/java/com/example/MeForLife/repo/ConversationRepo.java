@@ -14,6 +14,12 @@ public interface ConversationRepo extends JpaRepository<Conversation,Long> {
     @Query("SELECT c FROM Conversation c WHERE c.sender=:sender OR c.receiver=:sender")
     List<Conversation> getConv(@Param("sender") String sender);
 
-    @Query("SELECT c  FROM Conversation c WHERE c.sender =:sender ORDER BY c.dateTime DESC LIMIT 1")
+    @Query("SELECT c  FROM Conversation c WHERE c.sender =:sender ORDER BY c.createdAt DESC, c.coversationId DESC LIMIT 1")
     List<Conversation> getRecentConvIDByDate(@Param("sender") String sender);
+
+    @Query("SELECT c.coversationId, c.dateTime FROM Conversation c WHERE c.createdAt IS NULL")
+    List<Object[]> findWithoutCreatedAt();
+
+    @Query("SELECT COUNT(c) > 0 FROM Conversation c WHERE c.coversationId = :id AND (c.sender = :username OR c.receiver = :username)")
+    boolean isParticipant(@Param("id") Long id, @Param("username") String username);
 }
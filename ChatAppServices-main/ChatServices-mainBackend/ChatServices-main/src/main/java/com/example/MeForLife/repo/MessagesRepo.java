@@ -1,10 +1,13 @@
 package com.example.MeForLife.repo;
 
+import com.example.MeForLife.entity.MessageView;
 import com.example.MeForLife.entity.Messages;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,8 +17,53 @@ public interface MessagesRepo extends JpaRepository<Messages,Long> {
     @Query("SELECT m FROM Messages m WHERE m.conversationID= :conversationID")
     List<Messages> getConvsByID(@Param("conversationID") String conversationID);
 
+    // newest first, without the chatimage column but telling whether it is set
+    @Query("SELECT new com.example.MeForLife.entity.MessageView(m.messageID, m.content, m.sender, m.receiver, "
+            + "m.dateTime, m.sentAt, m.conversationID, m.chatTime, m.chatimageRef, "
+            + "CASE WHEN m.chatimage IS NOT NULL THEN true ELSE false END) "
+            + "FROM Messages m WHERE m.conversationID = :conversationID AND m.messageID < :before "
+            + "ORDER BY m.messageID DESC")
+    List<MessageView> findViewsBefore(@Param("conversationID") Long conversationID,
+                                      @Param("before") Long before,
+                                      Limit limit);
+
+    @Query("SELECT m.messageID FROM Messages m WHERE m.chatimage IS NOT NULL ORDER BY m.messageID")
+    List<Long> findIdsWithInlineImage();
+
+    @Query("SELECT MAX(m.messageID) FROM Messages m")
+    Long findMaxMessageId();
+
     List<Messages> findByConversationIDAndDateTimeOrderByDateTimeAsc(
             Long conversationID,
             String dateTime
     );
+
+    // served by the (conversationID, sent_at) index
+    List<Messages> findByConversationIDAndSentAtGreaterThanEqualAndSentAtLessThanOrderBySentAtAscMessageIDAsc(
+            Long conversationID,
+            Instant from,
+            Instant to
+    );
+
+    // rows the sent_at backfill has not reached yet
+    List<Messages> findByConversationIDAndDateTimeAndSentAtIsNullOrderByMessageIDAsc(
+            Long conversationID,
+            String dateTime
+    );
+
+    // newest message of a day, the version of that day's exports
+    @Query("SELECT MAX(m.messageID) FROM Messages m "
+            + "WHERE m.conversationID = :conversationID AND m.sentAt >= :from AND m.sentAt < :to")
+    Long findLatestMessageIdBetween(@Param("conversationID") Long conversationID,
+                                    @Param("from") Instant from,
+                                    @Param("to") Instant to);
+
+    @Query("SELECT MAX(m.messageID) FROM Messages m "
+            + "WHERE m.conversationID = :conversationID AND m.dateTime = :dateTime")
+    Long findLatestMessageIdByDateTime(@Param("conversationID") Long conversationID,
+                                       @Param("dateTime") String dateTime);
+
+    @Query("SELECT m.messageID, m.dateTime, m.chatTime FROM Messages m "
+            + "WHERE m.sentAt IS NULL AND m.messageID > :after ORDER BY m.messageID")
+    List<Object[]> findWithoutSentAt(@Param("after") Long after, Limit limit);
 }
@@ -0,0 +1,18 @@
+package com.example.MeForLife.repo;
+
+import com.example.MeForLife.entity.OutboxEmail;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEmailRepo extends JpaRepository<OutboxEmail, Long> {
+
+    // served by idx_email_outbox_due
+    List<OutboxEmail> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            OutboxEmail.Status status,
+            Instant now,
+            Limit limit
+    );
+}
@@ -0,0 +1,205 @@
+package com.example.MeForLife.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Export backgrounds by key, decoded once and kept in memory.
+ *
+ * <p>The registry indexes {@code chat-backgrounds/} on the classpath and, if it exists, the
+ * directory {@code meforlife.backgrounds.dir}, whose files win over bundled ones with the same
+ * key. For a key, {@code .png} is preferred over {@code .jpg} and {@code .jpeg}. Decoded images
+ * are converted to {@link BufferedImage#TYPE_INT_ARGB}, the type of the export canvas, and cached
+ * least-recently-used within {@code meforlife.backgrounds.cache-max-bytes}. Concurrent requests
+ * for the same key share one decode. Indexed backgrounds are decoded at startup unless
+ * {@code meforlife.backgrounds.preload} is off. {@link #reload()} re-indexes and empties the
+ * cache.</p>
+ *
+ * <p>Returned images are shared and must only be read.</p>
+ */
+@Service
+public class BackgroundRegistry {
+
+    private static final String[] EXTENSIONS = {".png", ".jpg", ".jpeg"};
+
+    private final Path externalDir;
+    private final long cacheMaxBytes;
+    private final boolean preload;
+    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    private volatile Map<String, Resource> index = Map.of();
+    private final LinkedHashMap<String, BufferedImage> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<BufferedImage>> loading = new ConcurrentHashMap<>();
+    private long cachedBytes;
+    private long generation;
+
+    public BackgroundRegistry(@Value("${meforlife.backgrounds.dir:data/backgrounds}") String dir,
+                              @Value("${meforlife.backgrounds.cache-max-bytes:268435456}") long cacheMaxBytes,
+                              @Value("${meforlife.backgrounds.preload:true}") boolean preload)
+            throws IOException {
+        this.externalDir = Path.of(dir);
+        this.cacheMaxBytes = cacheMaxBytes;
+        this.preload = preload;
+        reload();
+    }
+
+    // decodes the indexed backgrounds once at startup, so the first exports do not pay for it
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!preload) {
+            return;
+        }
+        Thread worker = new Thread(() -> {
+            for (String key : keys()) {
+                try {
+                    get(key);
+                } catch (IOException e) {
+                    System.out.println("Could not preload background " + key + ": " + e.getMessage());
+                }
+            }
+        }, "background-preload");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Re-indexes the background directories and drops every decoded image. */
+    public void reload() throws IOException {
+        Map<String, Resource> found = new LinkedHashMap<>();
+        // reverse preference order, so later puts win
+        for (int i = EXTENSIONS.length - 1; i >= 0; i--) {
+            for (Resource resource : resolver.getResources("classpath*:chat-backgrounds/*" + EXTENSIONS[i])) {
+                found.put(keyOf(resource.getFilename(), EXTENSIONS[i]), resource);
+            }
+        }
+        if (Files.isDirectory(externalDir)) {
+            for (int i = EXTENSIONS.length - 1; i >= 0; i--) {
+                String extension = EXTENSIONS[i];
+                try (Stream<Path> files = Files.list(externalDir)) {
+                    files.filter(file -> file.getFileName().toString().toLowerCase().endsWith(extension))
+                            .forEach(file -> found.put(keyOf(file.getFileName().toString(), extension),
+                                    new FileSystemResource(file)));
+                }
+            }
+        }
+        synchronized (cache) {
+            index = Map.copyOf(found);
+            cache.clear();
+            cachedBytes = 0;
+            generation++;
+        }
+    }
+
+    public List<String> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /** The background file itself, for embedding it in its original encoding. */
+    public Optional<Resource> resource(String key) {
+        return Optional.ofNullable(index.get(key));
+    }
+
+    /** The decoded background, or empty if no background has this key. */
+    public Optional<BufferedImage> get(String key) throws IOException {
+        long loadGeneration;
+        synchronized (cache) {
+            BufferedImage cached = cache.get(key);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            loadGeneration = generation;
+        }
+        Resource resource = index.get(key);
+        if (resource == null) {
+            return Optional.empty();
+        }
+
+        CompletableFuture<BufferedImage> mine = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> running = loading.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return Optional.of(running.join());
+            } catch (RuntimeException e) {
+                throw new IOException("Could not decode background " + key, e.getCause());
+            }
+        }
+        try {
+            BufferedImage image = decode(resource);
+            cache(key, image, loadGeneration);
+            mine.complete(image);
+            return Optional.of(image);
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    private BufferedImage decode(Resource resource) throws IOException {
+        BufferedImage decoded;
+        try (InputStream in = resource.getInputStream()) {
+            decoded = ImageIO.read(in);
+        }
+        if (decoded == null) {
+            throw new IOException("Unsupported image format: " + resource.getFilename());
+        }
+        if (decoded.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return decoded;
+        }
+        BufferedImage converted = new BufferedImage(decoded.getWidth(), decoded.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(decoded, 0, 0, null);
+        g.dispose();
+        return converted;
+    }
+
+    private void cache(String key, BufferedImage image, long loadGeneration) {
+        long size = sizeOf(image);
+        synchronized (cache) {
+            // a reload happened while decoding, the image may be stale
+            if (loadGeneration != generation || size > cacheMaxBytes) {
+                return;
+            }
+            BufferedImage previous = cache.put(key, image);
+            if (previous != null) {
+                cachedBytes -= sizeOf(previous);
+            }
+            cachedBytes += size;
+            Iterator<Map.Entry<String, BufferedImage>> eldest = cache.entrySet().iterator();
+            while (cachedBytes > cacheMaxBytes && eldest.hasNext()) {
+                cachedBytes -= sizeOf(eldest.next().getValue());
+                eldest.remove();
+            }
+        }
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    private static String keyOf(String fileName, String extension) {
+        return fileName.substring(0, fileName.length() - extension.length());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.MeForLife.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for binary payloads such as chat images. A blob is referenced by the
+ * lowercase hex SHA-256 of its bytes, so storing the same content twice yields the same reference
+ * and keeps a single copy.
+ */
+public interface BlobStore {
+
+    /** Thrown by {@link #put} when the content is larger than the store accepts. */
+    class TooLargeException extends IllegalArgumentException {
+        public TooLargeException(long maxSize) {
+            super("Blob exceeds the limit of " + maxSize + " bytes");
+        }
+    }
+
+    /**
+     * Streams {@code content} into the store and returns its reference. The stream is read to the
+     * end but not closed.
+     *
+     * @throws TooLargeException if the content exceeds the store's size limit
+     */
+    String put(InputStream content) throws IOException;
+
+    /**
+     * Location of a stored blob, or empty if the reference is unknown or malformed.
+     */
+    Optional<Path> find(String ref);
+
+    boolean exists(String ref);
+}
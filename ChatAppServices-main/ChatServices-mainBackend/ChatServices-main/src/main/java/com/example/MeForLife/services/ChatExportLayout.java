@@ -0,0 +1,213 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.Messages;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where everything of a chat export goes, computed before anything is drawn.
+ *
+ * <p>Texts are wrapped to the bubble width and images scaled to fit {@value #MAX_IMAGE} pixels.
+ * Blocks are then placed on pages the size of the background, each starting below the date
+ * header. A block that does not fit on the rest of a page moves to the next one, and a text taller
+ * than a whole page is split into several bubbles, the last one carrying the time. Coordinates
+ * are measured from the top-left corner of a page, as on the raster canvas.</p>
+ */
+final class ChatExportLayout {
+
+    static final float MESSAGE_SIZE = 28;
+    static final float TIME_SIZE = 20;
+    static final float DATE_SIZE = 32;
+    static final float LINE_HEIGHT = 34;
+    static final float MAX_IMAGE = 350;
+
+    private static final float TOP = 150;
+    private static final float BOTTOM_MARGIN = 50;
+    private static final float GAP = 25;
+    private static final float BUBBLE_HEIGHT = 110;
+    private static final float MIN_BUBBLE_WIDTH = 250;
+
+    enum Kind { TEXT, IMAGE }
+
+    /**
+     * A text bubble or photo in place. Text lines have their baselines at {@link #lineBaseline};
+     * {@code time} is drawn at {@link #timeBaseline} and is null on all but the last part of a
+     * split text.
+     */
+    record Block(Kind kind, Messages message, boolean sender, float x, float y, float width, float height,
+                 List<String> lines, String time) {
+
+        float lineBaseline(int line) {
+            return y + 45 + line * LINE_HEIGHT;
+        }
+
+        float timeBaseline() {
+            return kind == Kind.IMAGE ? y + height + 30 : y + 80 + (lines.size() - 1) * LINE_HEIGHT;
+        }
+    }
+
+    record Page(List<Block> blocks) {
+    }
+
+    interface TextMeasure {
+        float width(String text, float size);
+    }
+
+    interface ImageMeasure {
+        Optional<Dimension> size(Messages message) throws IOException;
+    }
+
+    private final float width;
+    private final float height;
+    private final List<Page> pages = new ArrayList<>();
+    private List<Block> current = new ArrayList<>();
+    private float y = TOP;
+    private long largestImagePixels;
+    private long imagePixels;
+
+    private ChatExportLayout(float width, float height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    static ChatExportLayout measure(List<Messages> messages, String loggedUser, float width, float height,
+                                    TextMeasure text, ImageMeasure images) {
+        ChatExportLayout layout = new ChatExportLayout(width, height);
+        for (Messages message : messages) {
+            boolean sender = message.getSender() != null && message.getSender().equalsIgnoreCase(loggedUser);
+            if (message.getcontent() != null && !message.getcontent().trim().isEmpty()) {
+                layout.placeText(message, sender, text);
+            }
+            if (message.getChatimageRef() != null
+                    || (message.getChatimage() != null && !message.getChatimage().isEmpty())) {
+                try {
+                    Optional<Dimension> size = images.size(message);
+                    if (size.isPresent()) {
+                        layout.placeImage(message, sender, size.get());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Unreadable chat image");
+                }
+            }
+        }
+        layout.pages.add(new Page(layout.current));
+        return layout;
+    }
+
+    float getWidth() {
+        return width;
+    }
+
+    float getHeight() {
+        return height;
+    }
+
+    List<Page> getPages() {
+        return pages;
+    }
+
+    /** Pixels of the largest chat image at its original size, what decoding it takes. */
+    long getLargestImagePixels() {
+        return largestImagePixels;
+    }
+
+    /** Pixels of all chat images at their original size. */
+    long getImagePixels() {
+        return imagePixels;
+    }
+
+    private void placeText(Messages message, boolean sender, TextMeasure measure) {
+        float maxBubbleWidth = Math.max(MIN_BUBBLE_WIDTH, width - 300);
+        List<String> lines = wrap(message.getcontent(), maxBubbleWidth - 50, measure);
+        float bottom = height - BOTTOM_MARGIN;
+        int next = 0;
+        while (next < lines.size()) {
+            int remaining = lines.size() - next;
+            int fitsHere = linesFitting(bottom - y);
+            // move to a fresh page rather than split a bubble that would fit there whole
+            if (!current.isEmpty() && (fitsHere == 0 || (fitsHere < remaining && linesFitting(bottom - TOP) >= remaining))) {
+                newPage();
+                continue;
+            }
+            int count = Math.max(1, Math.min(fitsHere, remaining));
+            List<String> part = List.copyOf(lines.subList(next, next + count));
+            next += count;
+
+            float widest = 0;
+            for (String line : part) {
+                widest = Math.max(widest, measure.width(line, MESSAGE_SIZE));
+            }
+            float bubbleWidth = Math.max(MIN_BUBBLE_WIDTH, Math.min(maxBubbleWidth, widest + 50));
+            float bubbleHeight = BUBBLE_HEIGHT + (count - 1) * LINE_HEIGHT;
+            float x = sender ? width - bubbleWidth - 50 : 50;
+            boolean last = next == lines.size();
+            current.add(new Block(Kind.TEXT, message, sender, x, y, bubbleWidth, bubbleHeight, part,
+                    last ? message.getChatTime() : null));
+            y += bubbleHeight + GAP;
+            if (!last) {
+                newPage();
+            }
+        }
+    }
+
+    private void placeImage(Messages message, boolean sender, Dimension size) {
+        long pixels = (long) size.width * size.height;
+        largestImagePixels = Math.max(largestImagePixels, pixels);
+        imagePixels += pixels;
+        double scale = Math.min(MAX_IMAGE / size.width, MAX_IMAGE / size.height);
+        int imageWidth = (int) (size.width * scale);
+        int imageHeight = (int) (size.height * scale);
+        if (!current.isEmpty() && y + imageHeight + 30 > height - BOTTOM_MARGIN) {
+            newPage();
+        }
+        float x = sender ? width - imageWidth - 80 : 50;
+        current.add(new Block(Kind.IMAGE, message, sender, x, y, imageWidth, imageHeight, List.of(),
+                message.getChatTime()));
+        y += imageHeight + 80;
+    }
+
+    private void newPage() {
+        pages.add(new Page(current));
+        current = new ArrayList<>();
+        y = TOP;
+    }
+
+    private static int linesFitting(float available) {
+        return available < BUBBLE_HEIGHT ? 0 : (int) ((available - BUBBLE_HEIGHT) / LINE_HEIGHT) + 1;
+    }
+
+    /** Greedy word wrap; words wider than a line are broken between characters. */
+    static List<String> wrap(String text, float maxWidth, TextMeasure measure) {
+        List<String> lines = new ArrayList<>();
+        for (String paragraph : text.split("\\R")) {
+            StringBuilder line = new StringBuilder();
+            for (String word : paragraph.trim().split(" +")) {
+                String candidate = line.isEmpty() ? word : line + " " + word;
+                if (measure.width(candidate, MESSAGE_SIZE) <= maxWidth) {
+                    line.setLength(0);
+                    line.append(candidate);
+                    continue;
+                }
+                if (!line.isEmpty()) {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                }
+                for (int i = 0; i < word.length(); i++) {
+                    if (!line.isEmpty() && measure.width(line.toString() + word.charAt(i), MESSAGE_SIZE) > maxWidth) {
+                        lines.add(line.toString());
+                        line.setLength(0);
+                    }
+                    line.append(word.charAt(i));
+                }
+            }
+            if (!line.isEmpty() || lines.isEmpty()) {
+                lines.add(line.toString());
+            }
+        }
+        return lines;
+    }
+}
@@ -2,84 +2,151 @@ package com.example.MeForLife.services;
 
 import com.example.MeForLife.entity.Messages;
 import com.example.MeForLife.repo.MessagesRepo;
+import com.lowagie.text.BadElementException;
+import com.lowagie.text.Document;
+import com.lowagie.text.Element;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfGState;
+import com.lowagie.text.pdf.PdfWriter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.font.FontRenderContext;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Base64;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ChatExportService {
 
     private final MessagesRepo messageRepository;
-
-    public ChatExportService(MessagesRepo messageRepository) {
+    private final ChatImageService chatImageService;
+    private final SentAtBackfill sentAtBackfill;
+    private final BackgroundRegistry backgroundRegistry;
+    private final ExportAdmission exportAdmission;
+    private final int renderThreads;
+    // pages of all exports are drawn here, so concurrent exports share meforlife.exports.render-threads
+    private final ExecutorService renderPool;
+
+    public ChatExportService(MessagesRepo messageRepository, ChatImageService chatImageService,
+                             SentAtBackfill sentAtBackfill, BackgroundRegistry backgroundRegistry,
+                             ExportAdmission exportAdmission,
+                             @Value("${meforlife.exports.render-threads:2}") int renderThreads) {
         this.messageRepository = messageRepository;
+        this.chatImageService = chatImageService;
+        this.sentAtBackfill = sentAtBackfill;
+        this.backgroundRegistry = backgroundRegistry;
+        this.exportAdmission = exportAdmission;
+        this.renderThreads = Math.max(1, renderThreads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(this.renderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "chat-export-render-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    // ---------------------------------------------------------------
-    // Helper function to clean base64 (removes prefix if present)
-    // ---------------------------------------------------------------
-    private byte[] cleanBase64(String input) {
-
-        if (input == null || input.trim().isEmpty()) return null;
-
-        input = input.trim();
+    @PreDestroy
+    public void stop() {
+        renderPool.shutdownNow();
+    }
 
-        // Remove "data:image/...;base64," prefix if exists
-        if (input.startsWith("data:image")) {
-            int commaIndex = input.indexOf(",");
-            if (commaIndex != -1) {
-                input = input.substring(commaIndex + 1);
+    /**
+     * Messages of one {@code dd-MM-yyyy} day, read as a {@code sent_at} range. Rows the backfill
+     * has not reached yet are matched on the date string until it completes.
+     */
+    List<Messages> findMessagesOfDay(Long conversationId, String date) {
+        Instant from = SentAtBackfill.toInstant(date, null);
+        if (from == null) {
+            return messageRepository.findByConversationIDAndDateTimeOrderByDateTimeAsc(conversationId, date);
+        }
+        Instant to = LocalDate.parse(date.trim(), SentAtBackfill.DATE).plusDays(1)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant();
+        List<Messages> messages = messageRepository
+                .findByConversationIDAndSentAtGreaterThanEqualAndSentAtLessThanOrderBySentAtAscMessageIDAsc(
+                        conversationId, from, to);
+        if (!sentAtBackfill.isComplete()) {
+            List<Messages> legacy =
+                    messageRepository.findByConversationIDAndDateTimeAndSentAtIsNullOrderByMessageIDAsc(conversationId, date);
+            if (!legacy.isEmpty()) {
+                messages = new ArrayList<>(messages);
+                messages.addAll(legacy);
+                messages.sort(Comparator.comparing(Messages::getMessageID));
             }
         }
+        return messages;
+    }
 
-        // Remove any whitespace or newlines
-        input = input.replace("\n", "")
-                .replace("\r", "")
-                .replace(" ", "")
-                .trim();
-
-        return Base64.getDecoder().decode(input);
+    /**
+     * The newest message ID of a {@code dd-MM-yyyy} day, or null if the day has no messages.
+     * Messages are only ever added, so this changes exactly when the day's exports would.
+     */
+    Long findLatestMessageIdOfDay(Long conversationId, String date) {
+        Instant from = SentAtBackfill.toInstant(date, null);
+        if (from == null) {
+            return messageRepository.findLatestMessageIdByDateTime(conversationId, date);
+        }
+        Instant to = LocalDate.parse(date.trim(), SentAtBackfill.DATE).plusDays(1)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant();
+        Long latest = messageRepository.findLatestMessageIdBetween(conversationId, from, to);
+        if (!sentAtBackfill.isComplete()) {
+            Long legacy = messageRepository.findLatestMessageIdByDateTime(conversationId, date);
+            if (legacy != null && (latest == null || legacy > latest)) {
+                latest = legacy;
+            }
+        }
+        return latest;
     }
 
     // ---------------------------------------------------------------
     // Export Chat Image
     // ---------------------------------------------------------------
-    public BufferedImage exportChatImage(Long conversationId,
-                                         String date,
-                                         String backgroundKey,
-                                         String loggedUser) throws Exception {
-
-        // ---------------- FETCH MESSAGES ----------------
-        List<Messages> messages =
-                messageRepository.findByConversationIDAndDateTimeOrderByDateTimeAsc(conversationId, date);
 
-        if (messages.isEmpty()) {
-            throw new RuntimeException("No messages found for this date.");
-        }
-
-        // ---------------- LOAD BACKGROUND ----------------
-        String[] extensions = {".png", ".jpg", ".jpeg"};
-        BufferedImage bgImage = null;
-
-        for (String ext : extensions) {
-            InputStream is = getClass().getResourceAsStream("/chat-backgrounds/" + backgroundKey + ext);
-            if (is != null) {
-                bgImage = ImageIO.read(is);
-                break;
+    /**
+     * Writes the day as one PNG: the pages of the layout stacked top to bottom, each on its own
+     * copy of the background. Pages are rendered in parallel and handed to the encoder one at a
+     * time, so a long day never exists as a single canvas.
+     */
+    public void writeChatPNG(Long conversationId,
+                             String date,
+                             String backgroundKey,
+                             String loggedUser,
+                             OutputStream out) throws Exception {
+
+        BufferedImage bgImage = loadBackground(backgroundKey);
+        ChatExportLayout layout = rasterLayout(conversationId, date, loggedUser, bgImage);
+
+        try (ExportAdmission.Permit permit = exportAdmission.admit(estimateRasterBytes(layout, false));
+             PageRenderQueue pages = renderPages(layout, date, bgImage)) {
+            PagedChatImage image = new PagedChatImage(pages, bgImage.getWidth(), bgImage.getHeight());
+            if (!ImageIO.write(image, "png", out)) {
+                throw new IOException("No PNG writer available");
             }
         }
+    }
 
-        if (bgImage == null) {
-            throw new RuntimeException("Background not found: " + backgroundKey);
-        }
+    /** One page of the layout drawn on the background; used by the PNG and the raster PDF. */
+    BufferedImage renderPage(ChatExportLayout layout, int pageIndex, String date, BufferedImage bgImage) {
 
         int width = bgImage.getWidth();
         int height = bgImage.getHeight();
@@ -91,15 +158,11 @@ public class ChatExportService {
         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g.drawImage(bgImage, 0, 0, width, height, null);
 
-        int y = 150;
-        int maxBubbleWidth = width - 300;
-        int minBubbleWidth = 250;   // ⭐ FIX: Ensures proper right alignment
+        Font msgFont = new Font("SansSerif", Font.PLAIN, (int) ChatExportLayout.MESSAGE_SIZE);
+        Font timeFont = new Font("SansSerif", Font.PLAIN, (int) ChatExportLayout.TIME_SIZE);
+        Font dateFont = new Font("SansSerif", Font.BOLD, (int) ChatExportLayout.DATE_SIZE);
 
-        Font msgFont = new Font("SansSerif", Font.PLAIN, 28);
-        Font timeFont = new Font("SansSerif", Font.PLAIN, 20);
-        Font dateFont = new Font("SansSerif", Font.BOLD, 32);
-
-        // ---------------- DATE HEADER ----------------
+        // ---------------- DATE HEADER (on every page) ----------------
         g.setFont(dateFont);
         int dw = g.getFontMetrics().stringWidth(date);
 
@@ -109,141 +172,353 @@ public class ChatExportService {
         g.setColor(Color.BLACK);
         g.drawString(date, (width - dw) / 2, 100);
 
-        g.setFont(msgFont);
-
-        // ---------------- LOOP MESSAGES ----------------
-        for (Messages msg : messages) {
+        for (ChatExportLayout.Block block : layout.getPages().get(pageIndex).blocks()) {
+            // the export was abandoned, stop allocating before its memory budget is released
+            if (Thread.currentThread().isInterrupted()) {
+                g.dispose();
+                throw new CancellationException("Rendering of page " + pageIndex + " cancelled");
+            }
 
-            boolean isSender = msg.getSender().equalsIgnoreCase(loggedUser);
+            int x = Math.round(block.x());
+            int y = Math.round(block.y());
+            int w = Math.round(block.width());
+            int h = Math.round(block.height());
 
             // **********************************************************
             // A. TEXT MESSAGE
             // **********************************************************
-            if (msg.getcontent() != null && !msg.getcontent().trim().isEmpty()) {
-
-                String text = msg.getcontent();
-                int textWidth = g.getFontMetrics().stringWidth(text);
-
-                int bubbleWidth = Math.max(minBubbleWidth,
-                        Math.min(maxBubbleWidth, textWidth + 50));
-
-                int bubbleHeight = 110;
-
-                int bubbleX = isSender
-                        ? width - bubbleWidth - 50
-                        : 50;
+            if (block.kind() == ChatExportLayout.Kind.TEXT) {
 
-                Color bubbleColor = isSender
+                Color bubbleColor = block.sender()
                         ? new Color(0, 132, 255, 240)
                         : new Color(255, 255, 255, 240);
 
-                Color textColor = isSender ? Color.WHITE : Color.BLACK;
+                Color textColor = block.sender() ? Color.WHITE : Color.BLACK;
 
                 g.setColor(bubbleColor);
-                g.fillRoundRect(bubbleX, y, bubbleWidth, bubbleHeight, 35, 35);
+                g.fillRoundRect(x, y, w, h, 35, 35);
 
                 g.setColor(textColor);
-                g.drawString(text, bubbleX + 20, y + 45);
-
-                g.setFont(timeFont);
-                g.drawString(msg.getChatTime(), bubbleX + 20, y + 80);
-
                 g.setFont(msgFont);
+                for (int line = 0; line < block.lines().size(); line++) {
+                    g.drawString(block.lines().get(line), x + 20, Math.round(block.lineBaseline(line)));
+                }
 
-                y += bubbleHeight + 25;
+                if (block.time() != null) {
+                    g.setFont(timeFont);
+                    g.drawString(block.time(), x + 20, Math.round(block.timeBaseline()));
+                }
+                continue;
             }
 
             // **********************************************************
-            // B. IMAGE MESSAGE (Base64)
+            // B. IMAGE MESSAGE (blob store, or legacy inline Base64)
             // **********************************************************
-            // ============================
-// B. IMAGE MESSAGE (Base64)
-// ============================
-            if (msg.getChatimage() != null && !msg.getChatimage().isEmpty()) {
+            try {
+                BufferedImage chatImg = chatImageService.read(block.message()).orElse(null);
 
-                try {
-                    byte[] imgBytes = cleanBase64(msg.getChatimage());
-                    BufferedImage chatImg =
-                            ImageIO.read(new ByteArrayInputStream(imgBytes));
+                if (chatImg != null) {
+
+                    // ---- DRAW ROUNDED IMAGE ----
+                    BufferedImage rounded = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+                    Graphics2D rg = rounded.createGraphics();
+                    rg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+                    Shape clipShape = new RoundRectangle2D.Double(0, 0, w, h, 30, 30);
+                    rg.setClip(clipShape);
+                    rg.drawImage(chatImg, 0, 0, w, h, null);
+                    rg.dispose();
+
+                    g.drawImage(rounded, x, y, null);
+
+                    // ---- TIME TEXT UNDER IMAGE ----
+                    g.setFont(timeFont);
+                    g.setColor(Color.WHITE);
+                    g.drawString(block.time(), x + 10, Math.round(block.timeBaseline()));
+                }
+
+            } catch (Exception e) {
+                System.out.println("Unreadable chat image");
+            }
+        }
+
+        g.dispose();
+        return output;
+    }
 
-                    if (chatImg != null) {
+    private BufferedImage loadBackground(String backgroundKey) throws IOException {
+        return backgroundRegistry.get(backgroundKey)
+                .orElseThrow(() -> new RuntimeException("Background not found: " + backgroundKey));
+    }
 
-                        int maxImgSize = 350;  // ⭐ MUCH BETTER SIZE
-                        int originalW = chatImg.getWidth();
-                        int originalH = chatImg.getHeight();
+    private ChatExportLayout rasterLayout(Long conversationId, String date, String loggedUser,
+                                          BufferedImage bgImage) {
+        List<Messages> messages = findMessagesOfDay(conversationId, date);
 
-                        // ---- SCALE PROPORTIONALLY ----
-                        double scale = Math.min(
-                                (double) maxImgSize / originalW,
-                                (double) maxImgSize / originalH
-                        );
+        if (messages.isEmpty()) {
+            throw new RuntimeException("No messages found for this date.");
+        }
 
-                        int imgRenderW = (int) (originalW * scale);
-                        int imgRenderH = (int) (originalH * scale);
+        FontRenderContext frc = new FontRenderContext(null, true, false);
+        Map<Float, Font> fonts = new HashMap<>();
+        return ChatExportLayout.measure(messages, loggedUser, bgImage.getWidth(), bgImage.getHeight(),
+                (text, size) -> (float) fonts.computeIfAbsent(size, s -> new Font("SansSerif", Font.PLAIN, Math.round(s)))
+                        .getStringBounds(text, frc).getWidth(),
+                chatImageService::readSize);
+    }
 
-                        // ---- LEFT / RIGHT ALIGN ----
-                        int bubbleX = isSender
-                                ? width - imgRenderW - 80
-                                : 50;
+    private PageRenderQueue renderPages(ChatExportLayout layout, String date, BufferedImage bgImage) {
+        // one page ahead per render thread keeps them all busy without piling up canvases
+        return new PageRenderQueue(renderPool, layout.getPages().size(), pagesInFlight(layout),
+                page -> renderPage(layout, page, date, bgImage));
+    }
 
-                        // ---- DRAW ROUNDED IMAGE ----
-                        BufferedImage rounded = new BufferedImage(imgRenderW, imgRenderH, BufferedImage.TYPE_INT_ARGB);
-                        Graphics2D rg = rounded.createGraphics();
-                        rg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    private int pagesInFlight(ChatExportLayout layout) {
+        return Math.min(layout.getPages().size(), renderThreads + 1);
+    }
 
-                        Shape clipShape = new RoundRectangle2D.Double(0, 0, imgRenderW, imgRenderH, 30, 30);
-                        rg.setClip(clipShape);
-                        rg.drawImage(chatImg, 0, 0, imgRenderW, imgRenderH, null);
-                        rg.dispose();
+    /**
+     * What a raster export holds at most: a canvas per page in flight, each with the largest chat
+     * image decoded and its rounded copy, and for a PDF the pixels of the page being embedded.
+     */
+    long estimateRasterBytes(ChatExportLayout layout, boolean pdf) {
+        long pageBytes = (long) layout.getWidth() * (long) layout.getHeight() * 4;
+        long imageBytes = layout.getLargestImagePixels() > 0
+                ? (layout.getLargestImagePixels() + (long) (ChatExportLayout.MAX_IMAGE * ChatExportLayout.MAX_IMAGE)) * 4
+                : 0;
+        return pagesInFlight(layout) * (pageBytes + imageBytes) + (pdf ? pageBytes : 0);
+    }
 
-                        g.drawImage(rounded, bubbleX, y, null);
+    /** A vector PDF holds the background and every chat image, each once. */
+    long estimateVectorBytes(ChatExportLayout layout) {
+        return ((long) layout.getWidth() * (long) layout.getHeight() + layout.getImagePixels()) * 4;
+    }
 
-                        // ---- TIME TEXT UNDER IMAGE ----
-                        g.setFont(timeFont);
-                        g.setColor(Color.WHITE);
-                        g.drawString(msg.getChatTime(), bubbleX + 10, y + imgRenderH + 30);
+    // ---------------------------------------------------------------
+    // Export Chat PDF (vector)
+    // ---------------------------------------------------------------
 
-                        g.setFont(msgFont);
+    /**
+     * Writes the day as a PDF drawn with vector operators: bubbles are paths and text and times
+     * use an embedded subset of Liberation Sans, so the file is small and searchable. Only the
+     * background and chat photos are images; each is embedded once in its original encoding and
+     * referenced from every page that shows it. Pages follow the same {@link ChatExportLayout} as
+     * the PNG, measured with the embedded font.
+     */
+    public void writeChatPDF(Long conversationId,
+                             String date,
+                             String backgroundKey,
+                             String loggedUser,
+                             OutputStream out) throws Exception {
+
+        List<Messages> messages = findMessagesOfDay(conversationId, date);
 
-                        // ---- SPACING AFTER IMAGE ----
-                        y += imgRenderH + 80;
+        if (messages.isEmpty()) {
+            throw new RuntimeException("No messages found for this date.");
+        }
+
+        Resource bgResource = backgroundRegistry.resource(backgroundKey)
+                .orElseThrow(() -> new RuntimeException("Background not found: " + backgroundKey));
+        com.lowagie.text.Image background;
+        try (InputStream in = bgResource.getInputStream()) {
+            background = com.lowagie.text.Image.getInstance(in.readAllBytes());
+        }
+        float width = background.getPlainWidth();
+        float height = background.getPlainHeight();
+
+        BaseFont regular = PdfFonts.REGULAR;
+
+        ChatExportLayout layout = ChatExportLayout.measure(messages, loggedUser, width, height,
+                regular::getWidthPoint, chatImageService::readSize);
+
+        try (ExportAdmission.Permit permit = exportAdmission.admit(estimateVectorBytes(layout))) {
+            writeVectorPages(layout, date, background, out);
+        }
+    }
+
+    private void writeVectorPages(ChatExportLayout layout, String date, com.lowagie.text.Image background,
+                                  OutputStream out) {
+        float width = layout.getWidth();
+        float height = layout.getHeight();
+        BaseFont regular = PdfFonts.REGULAR;
+        // the same photo is embedded once, however often it was sent
+        Map<String, com.lowagie.text.Image> photos = new HashMap<>();
+
+        Document document = new Document(new com.lowagie.text.Rectangle(width, height), 0, 0, 0, 0);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setFullCompression();
+        document.open();
+        PdfContentByte cb = writer.getDirectContent();
+
+        List<ChatExportLayout.Page> pages = layout.getPages();
+        for (int page = 0; page < pages.size(); page++) {
+            if (page > 0) {
+                document.newPage();
+            }
+            drawPdfBackground(cb, background, width, height);
+
+            // ---------------- DATE HEADER ----------------
+            float dw = PdfFonts.BOLD.getWidthPoint(date, ChatExportLayout.DATE_SIZE);
+            fillPdfRoundRect(cb, (width - dw - 40) / 2, 50, dw + 40, 70, 12.5f, new Color(255, 255, 255, 220), height);
+            drawPdfText(cb, PdfFonts.BOLD, ChatExportLayout.DATE_SIZE, Color.BLACK, date, (width - dw) / 2, 100, height);
+
+            for (ChatExportLayout.Block block : pages.get(page).blocks()) {
+
+                // ---------------- TEXT MESSAGE ----------------
+                if (block.kind() == ChatExportLayout.Kind.TEXT) {
+                    Color bubbleColor = block.sender() ? new Color(0, 132, 255, 240) : new Color(255, 255, 255, 240);
+                    Color textColor = block.sender() ? Color.WHITE : Color.BLACK;
+
+                    fillPdfRoundRect(cb, block.x(), block.y(), block.width(), block.height(), 17.5f, bubbleColor, height);
+                    for (int line = 0; line < block.lines().size(); line++) {
+                        drawPdfText(cb, regular, ChatExportLayout.MESSAGE_SIZE, textColor, block.lines().get(line),
+                                block.x() + 20, block.lineBaseline(line), height);
                     }
+                    drawPdfText(cb, regular, ChatExportLayout.TIME_SIZE, textColor, block.time(),
+                            block.x() + 20, block.timeBaseline(), height);
+                    continue;
+                }
 
-                } catch (Exception e) {
-                    System.out.println("Invalid Base64 image");
+                // ---------------- IMAGE MESSAGE ----------------
+                com.lowagie.text.Image photo;
+                try {
+                    photo = pdfPhoto(block.message(), photos);
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Unreadable chat image");
+                    continue;
+                }
+                if (photo == null) {
+                    continue;
                 }
+                float bottom = height - block.y() - block.height();
+
+                cb.saveState();
+                cb.roundRectangle(block.x(), bottom, block.width(), block.height(), 15);
+                cb.clip();
+                cb.newPath();
+                cb.addImage(photo, block.width(), 0, 0, block.height(), block.x(), bottom);
+                cb.restoreState();
+
+                drawPdfText(cb, regular, ChatExportLayout.TIME_SIZE, Color.WHITE, block.time(),
+                        block.x() + 10, block.timeBaseline(), height);
             }
+        }
 
+        document.close();
+    }
+
+    private com.lowagie.text.Image pdfPhoto(Messages msg, Map<String, com.lowagie.text.Image> photos)
+            throws IOException {
+        String photoKey = msg.getChatimageRef() != null
+                ? msg.getChatimageRef() : "message-" + msg.getMessageID();
+        com.lowagie.text.Image photo = photos.get(photoKey);
+        if (photo == null) {
+            byte[] bytes = chatImageService.readBytes(msg).orElse(null);
+            if (bytes != null) {
+                try {
+                    photo = com.lowagie.text.Image.getInstance(bytes);
+                } catch (BadElementException e) {
+                    throw new IOException(e);
+                }
+                photos.put(photoKey, photo);
+            }
         }
+        return photo;
+    }
 
-        g.dispose();
-        return output;
+    // Fonts are parsed once; each document embeds the subset of glyphs it uses
+    private static final class PdfFonts {
+        static final BaseFont REGULAR = load("liberation/LiberationSans-Regular.ttf");
+        static final BaseFont BOLD = load("liberation/LiberationSans-Bold.ttf");
+
+        private static BaseFont load(String name) {
+            try (InputStream in = ChatExportService.class.getClassLoader().getResourceAsStream(name)) {
+                if (in == null) {
+                    throw new IllegalStateException("Font not found: " + name);
+                }
+                return BaseFont.createFont(name, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, true, in.readAllBytes(), null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
-    public byte[] convertImageToPDF(BufferedImage image) throws Exception {
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    private void drawPdfBackground(PdfContentByte cb, com.lowagie.text.Image background, float width, float height) {
+        cb.addImage(background, width, 0, 0, height, 0, 0);
+    }
 
+    // y is measured from the top of the page, as on the raster canvas
+    private void fillPdfRoundRect(PdfContentByte cb, float x, float y, float w, float h, float radius,
+                                  Color color, float pageHeight) {
+        cb.saveState();
+        applyPdfAlpha(cb, color);
+        cb.setColorFill(color);
+        cb.roundRectangle(x, pageHeight - y - h, w, h, radius);
+        cb.fill();
+        cb.restoreState();
+    }
+
+    private void drawPdfText(PdfContentByte cb, BaseFont font, float size, Color color, String text,
+                             float x, float baselineY, float pageHeight) {
+        if (text == null) {
+            return;
+        }
+        cb.beginText();
+        cb.setFontAndSize(font, size);
+        cb.setColorFill(color);
+        cb.showTextAligned(Element.ALIGN_LEFT, text, x, pageHeight - baselineY, 0);
+        cb.endText();
+    }
+
+    private void applyPdfAlpha(PdfContentByte cb, Color color) {
+        if (color.getAlpha() < 255) {
+            PdfGState state = new PdfGState();
+            state.setFillOpacity(color.getAlpha() / 255f);
+            cb.setGState(state);
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Export Chat PDF (raster)
+    // ---------------------------------------------------------------
+
+    /** Writes the day as a PDF with one rendered page image per page of the layout. */
+    public void writeRasterPDF(Long conversationId,
+                               String date,
+                               String backgroundKey,
+                               String loggedUser,
+                               OutputStream out) throws Exception {
+
+        BufferedImage bgImage = loadBackground(backgroundKey);
+        ChatExportLayout layout = rasterLayout(conversationId, date, loggedUser, bgImage);
+
+        // the PDF is written straight to out, it is never held in memory as a whole
         com.lowagie.text.Document document =
                 new com.lowagie.text.Document(
-                        new com.lowagie.text.Rectangle(image.getWidth(), image.getHeight()),
+                        new com.lowagie.text.Rectangle(bgImage.getWidth(), bgImage.getHeight()),
                         0, 0, 0, 0
                 );
 
-        com.lowagie.text.pdf.PdfWriter writer =
-                com.lowagie.text.pdf.PdfWriter.getInstance(document, baos);
+        com.lowagie.text.pdf.PdfWriter.getInstance(document, out);
 
         document.open();
 
-        com.lowagie.text.Image pdfImage =
-                com.lowagie.text.Image.getInstance(image, null);
+        try (ExportAdmission.Permit permit = exportAdmission.admit(estimateRasterBytes(layout, true));
+             PageRenderQueue pages = renderPages(layout, date, bgImage)) {
+            for (int page = 0; page < pages.size(); page++) {
+                if (page > 0) {
+                    document.newPage();
+                }
+                com.lowagie.text.Image pdfImage =
+                        com.lowagie.text.Image.getInstance(pages.take(page), null);
 
-        pdfImage.scaleToFit(image.getWidth(), image.getHeight());
-        pdfImage.setAbsolutePosition(0, 0);
+                pdfImage.scaleToFit(bgImage.getWidth(), bgImage.getHeight());
+                pdfImage.setAbsolutePosition(0, 0);
 
-        document.add(pdfImage);
+                document.add(pdfImage);
+            }
+        }
         document.close();
-
-        return baos.toByteArray();
     }
 
 }
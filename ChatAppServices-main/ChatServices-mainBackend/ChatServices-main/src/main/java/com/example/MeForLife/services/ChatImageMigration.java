@@ -0,0 +1,69 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.Messages;
+import com.example.MeForLife.repo.MessagesRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Moves base64 images of existing messages from the {@code chatimage} column into the blob store,
+ * one message at a time in the background. Reads keep working during the migration because
+ * {@link ChatImageService#read} still understands inline images. Only the two image columns are
+ * written, so columns filled in concurrently, such as {@code sent_at} by {@link SentAtBackfill},
+ * are never overwritten with what was loaded.
+ */
+@Service
+public class ChatImageMigration {
+
+    private static final String UPDATE_IMAGE =
+            "UPDATE messages SET chatimage_ref = ?, chatimage = NULL WHERE messageid = ? AND chatimage IS NOT NULL";
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChatImageService chatImageService;
+
+    @Value("${meforlife.blobs.migrate-inline-images:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread worker = new Thread(this::migrateAll, "chat-image-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void migrateAll() {
+        List<Long> ids = mrepo.findIdsWithInlineImage();
+        if (ids.isEmpty()) {
+            return;
+        }
+        System.out.println("Moving " + ids.size() + " inline chat images to the blob store");
+        for (Long id : ids) {
+            try {
+                Messages message = mrepo.findById(id).orElse(null);
+                if (message != null && message.getChatimage() != null) {
+                    chatImageService.externalize(message);
+                    jdbcTemplate.update(UPDATE_IMAGE, message.getChatimageRef(), id);
+                }
+            } catch (Exception e) {
+                System.out.println("Could not move the image of message " + id);
+                e.printStackTrace();
+            }
+        }
+        System.out.println("Finished moving inline chat images");
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.Messages;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Keeps chat images in the {@link BlobStore}: messages only carry the blob reference
+ * ({@code chatimageRef}), never the base64 payload.
+ */
+@Service
+public class ChatImageService {
+
+    // an IOException of the base64 decoder, as opposed to one of the blob store
+    private static final class MalformedBase64Exception extends IOException {
+        private MalformedBase64Exception(IOException cause) {
+            super(cause);
+        }
+    }
+
+    private static final class Base64DecodingStream extends FilterInputStream {
+        private Base64DecodingStream(String base64) {
+            super(Base64.getMimeDecoder().wrap(new ByteArrayInputStream(base64.getBytes(StandardCharsets.US_ASCII))));
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw new MalformedBase64Exception(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                return super.read(buffer, offset, length);
+            } catch (IOException e) {
+                throw new MalformedBase64Exception(e);
+            }
+        }
+    }
+
+    @Autowired
+    private BlobStore blobStore;
+
+    /**
+     * Moves an inline base64 {@code chatimage} into the blob store and replaces it with its
+     * reference. A reference sent by the client is kept only if the blob exists. An image that is
+     * not valid base64 is dropped and the rest of the message kept.
+     *
+     * @throws BlobStore.TooLargeException if the image exceeds the blob store's size limit
+     */
+    public void externalize(Messages message) throws IOException {
+        String inline = message.getChatimage();
+        if (inline != null && !inline.isBlank()) {
+            try (InputStream decoded = new Base64DecodingStream(stripDataPrefix(inline))) {
+                message.setChatimageRef(blobStore.put(decoded));
+            } catch (MalformedBase64Exception e) {
+                System.out.println("Invalid Base64 image dropped from message " + message.getMessageID());
+                message.setChatimageRef(null);
+            }
+        } else if (message.getChatimageRef() != null && !blobStore.exists(message.getChatimageRef())) {
+            message.setChatimageRef(null);
+        }
+        message.setChatimage(null);
+    }
+
+    /**
+     * Decoded image of a message, from the blob store or, for rows not migrated yet, from the
+     * inline base64 column. Empty if the message has no readable image.
+     */
+    public Optional<BufferedImage> read(Messages message) throws IOException {
+        Optional<InputStream> source = open(message);
+        if (source.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream in = source.get()) {
+            return Optional.ofNullable(ImageIO.read(in));
+        }
+    }
+
+    /**
+     * Encoded (PNG/JPEG) bytes of the image of a message, for embedding it without a decode.
+     * Empty if the message has no image.
+     */
+    public Optional<byte[]> readBytes(Messages message) throws IOException {
+        Optional<InputStream> source = open(message);
+        if (source.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream in = source.get()) {
+            return Optional.of(in.readAllBytes());
+        }
+    }
+
+    /** Pixel size of the image of a message, read from the image header without decoding it. */
+    public Optional<Dimension> readSize(Messages message) throws IOException {
+        Optional<InputStream> source = open(message);
+        if (source.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream in = source.get(); ImageInputStream images = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(images);
+            if (!readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(images, true, true);
+                return Optional.of(new Dimension(reader.getWidth(0), reader.getHeight(0)));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decodes the inline base64 image of a message while it is read, for rows not migrated to the
+     * blob store. Empty if the message has no inline image.
+     */
+    public Optional<InputStream> openInline(Messages message) {
+        String inline = message.getChatimage();
+        if (inline == null || inline.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Base64DecodingStream(stripDataPrefix(inline)));
+    }
+
+    private Optional<InputStream> open(Messages message) throws IOException {
+        if (message.getChatimageRef() != null) {
+            Optional<Path> blob = blobStore.find(message.getChatimageRef());
+            return blob.isPresent() ? Optional.of(Files.newInputStream(blob.get())) : Optional.empty();
+        }
+        String inline = message.getChatimage();
+        if (inline == null || inline.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new ByteArrayInputStream(Base64.getMimeDecoder().decode(stripDataPrefix(inline))));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Removes a "data:image/...;base64," prefix if present
+    private String stripDataPrefix(String input) {
+        String trimmed = input.trim();
+        if (trimmed.startsWith("data:")) {
+            int commaIndex = trimmed.indexOf(',');
+            if (commaIndex != -1) {
+                return trimmed.substring(commaIndex + 1);
+            }
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.OutboxEmail;
+import com.example.MeForLife.repo.OutboxEmailRepo;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends the emails queued in {@code email_outbox} from one background thread.
+ *
+ * <p>Due emails are sent in batches of {@code meforlife.mail.batch-size} with a single
+ * {@link JavaMailSender#send(MimeMessage...)} call, which delivers the whole batch over one SMTP
+ * connection. Attachments are streamed from the outbox directory instead of being held in memory.
+ * A failed email is retried after {@code meforlife.mail.retry-initial-ms}, doubling up to
+ * {@code meforlife.mail.retry-max-ms}, and marked failed after {@code meforlife.mail.max-attempts}.
+ * The thread wakes up when an email is queued and otherwise every
+ * {@code meforlife.mail.poll-interval-ms} to pick up retries.</p>
+ */
+@Service
+public class EmailDispatcher {
+
+    @Autowired
+    private OutboxEmailRepo outboxRepo;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${meforlife.mail.dispatcher-enabled:true}")
+    private boolean enabled;
+
+    @Value("${meforlife.mail.batch-size:20}")
+    private int batchSize;
+
+    @Value("${meforlife.mail.poll-interval-ms:5000}")
+    private long pollIntervalMillis;
+
+    @Value("${meforlife.mail.retry-initial-ms:30000}")
+    private long retryInitialMillis;
+
+    @Value("${meforlife.mail.retry-max-ms:3600000}")
+    private long retryMaxMillis;
+
+    @Value("${meforlife.mail.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${meforlife.mail.outbox-dir:data/outbox}")
+    private String outboxDir;
+
+    private final Object signal = new Object();
+    private boolean wakeRequested;
+    private volatile boolean stopped;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread worker = new Thread(this::dispatchLoop, "email-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        wakeUp();
+    }
+
+    public void wakeUp() {
+        synchronized (signal) {
+            wakeRequested = true;
+            signal.notifyAll();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (!stopped) {
+            int attempted = 0;
+            try {
+                attempted = dispatchDue();
+            } catch (Exception e) {
+                System.out.println("Email dispatch failed, retrying later");
+                e.printStackTrace();
+            }
+            if (attempted == batchSize) {
+                // a full batch, there may be more due right away
+                continue;
+            }
+            synchronized (signal) {
+                try {
+                    if (!wakeRequested && !stopped) {
+                        signal.wait(pollIntervalMillis);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                wakeRequested = false;
+            }
+        }
+    }
+
+    /** Sends one batch of due emails over a single SMTP connection; returns how many were attempted. */
+    int dispatchDue() {
+        List<OutboxEmail> due = outboxRepo.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                OutboxEmail.Status.PENDING, Instant.now(), Limit.of(batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        Map<MimeMessage, OutboxEmail> batch = new LinkedHashMap<>();
+        for (OutboxEmail email : due) {
+            try {
+                batch.put(toMimeMessage(email), email);
+            } catch (MessagingException | RuntimeException e) {
+                failed(email, e);
+            }
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        Exception batchFailure = null;
+        if (!batch.isEmpty()) {
+            try {
+                mailSender.send(batch.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                failures = e.getFailedMessages();
+                if (failures.isEmpty()) {
+                    batchFailure = e;
+                }
+            } catch (MailException e) {
+                batchFailure = e;
+            }
+        }
+        for (Map.Entry<MimeMessage, OutboxEmail> entry : batch.entrySet()) {
+            Exception failure = batchFailure != null ? batchFailure : failures.get(entry.getKey());
+            if (failure != null) {
+                failed(entry.getValue(), failure);
+            } else {
+                sent(entry.getValue());
+            }
+        }
+        outboxRepo.saveAll(due);
+        return due.size();
+    }
+
+    private MimeMessage toMimeMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, email.getAttachmentFile() != null);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody() != null ? email.getBody() : "");
+        if (email.getAttachmentFile() != null) {
+            Path attachment = Path.of(outboxDir, email.getAttachmentFile());
+            if (!Files.exists(attachment)) {
+                throw new MessagingException("Attachment " + attachment + " is missing");
+            }
+            helper.addAttachment(email.getAttachmentName(), new FileSystemResource(attachment));
+        }
+        return message;
+    }
+
+    private void sent(OutboxEmail email) {
+        email.setStatus(OutboxEmail.Status.SENT);
+        email.setSentAt(Instant.now());
+        email.setAttempts(email.getAttempts() + 1);
+        email.setLastError(null);
+        deleteAttachment(email);
+    }
+
+    private void failed(OutboxEmail email, Exception e) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        String error = String.valueOf(e.getMessage());
+        email.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (attempts >= maxAttempts) {
+            email.setStatus(OutboxEmail.Status.FAILED);
+            deleteAttachment(email);
+            System.out.println("Giving up on email " + email.getId() + " to " + email.getRecipient() + ": " + error);
+            return;
+        }
+        long backoff = retryInitialMillis << Math.min(attempts - 1, 20);
+        email.setNextAttemptAt(Instant.now().plusMillis(Math.min(backoff, retryMaxMillis)));
+    }
+
+    private void deleteAttachment(OutboxEmail email) {
+        if (email.getAttachmentFile() == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Path.of(outboxDir, email.getAttachmentFile()));
+        } catch (IOException e) {
+            System.out.println("Could not delete outbox attachment " + email.getAttachmentFile());
+        }
+    }
+}
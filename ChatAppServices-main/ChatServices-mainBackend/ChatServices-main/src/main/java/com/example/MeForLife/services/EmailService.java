@@ -1,36 +1,44 @@
 package com.example.MeForLife.services;
 
+import com.example.MeForLife.entity.OutboxEmail;
+import com.example.MeForLife.repo.OutboxEmailRepo;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import jakarta.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
 
+/**
+ * Queues emails in the {@code email_outbox} table; {@link EmailDispatcher} sends them. Attachments
+ * are copied into {@code meforlife.mail.outbox-dir} so the caller may delete its file.
+ */
 @Service
 public class EmailService {
 
     @Autowired
-    private JavaMailSender mailSender;
+    private OutboxEmailRepo outboxRepo;
 
-    public void sendChatExportEmail(String toEmail, String subject, String text, byte[] attachmentBytes, String fileName)  {
-try {
-
-
-    MimeMessage message = mailSender.createMimeMessage();
-    MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-    helper.setTo(toEmail);
-    helper.setSubject(subject);
-    helper.setText(text);
-
-    helper.addAttachment(fileName, new ByteArrayResource(attachmentBytes));
-
-    mailSender.send(message);
-}
-catch (Exception e){
-    e.printStackTrace();
-}
+    @Autowired
+    private EmailDispatcher dispatcher;
+
+    @Value("${meforlife.mail.outbox-dir:data/outbox}")
+    private String outboxDir;
+
+    public OutboxEmail sendChatExportEmail(String toEmail, String subject, String text, Path attachment, String fileName)
+            throws IOException {
+        String attachmentFile = null;
+        if (attachment != null) {
+            Path dir = Path.of(outboxDir);
+            Files.createDirectories(dir);
+            attachmentFile = UUID.randomUUID().toString();
+            Files.copy(attachment, dir.resolve(attachmentFile), StandardCopyOption.REPLACE_EXISTING);
+        }
+        OutboxEmail email = outboxRepo.save(new OutboxEmail(toEmail, subject, text, fileName, attachmentFile));
+        dispatcher.wakeUp();
+        return email;
     }
 }
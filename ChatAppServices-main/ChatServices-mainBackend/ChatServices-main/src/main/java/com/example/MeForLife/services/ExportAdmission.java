@@ -0,0 +1,105 @@
+package com.example.MeForLife.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the memory held by running exports within {@code meforlife.exports.memory-budget-bytes}
+ * (a quarter of the maximum heap when unset).
+ *
+ * <p>Each export estimates the bytes it will hold once it knows its layout and calls
+ * {@link #admit} before it renders anything. Exports that do not fit next to the running ones
+ * wait in arrival order for up to {@code meforlife.exports.admission-timeout-ms}, then fail with
+ * a {@link TimeoutException}. An export larger than the whole budget runs alone.</p>
+ */
+@Service
+public class ExportAdmission {
+
+    /** Budget held by an admitted export until it is closed. */
+    public final class Permit implements AutoCloseable {
+        private final int kib;
+        private boolean closed;
+
+        private Permit(int kib) {
+            this.kib = kib;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                budget.release(kib);
+            }
+        }
+    }
+
+    private final int budgetKib;
+    private final long timeoutMillis;
+    // fair, so a large export is not starved by a stream of small ones
+    private final Semaphore budget;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter timeouts;
+
+    public ExportAdmission(MeterRegistry meterRegistry,
+                           @Value("${meforlife.exports.memory-budget-bytes:0}") long budgetBytes,
+                           @Value("${meforlife.exports.admission-timeout-ms:60000}") long timeoutMillis) {
+        long bytes = budgetBytes > 0 ? budgetBytes : Runtime.getRuntime().maxMemory() / 4;
+        this.budgetKib = (int) Math.min(Integer.MAX_VALUE, Math.max(1, bytes / 1024));
+        this.timeoutMillis = timeoutMillis;
+        this.budget = new Semaphore(budgetKib, true);
+
+        Gauge.builder("meforlife.exports.admission.waiting", waiting, AtomicInteger::get)
+                .description("Exports waiting for memory budget")
+                .register(meterRegistry);
+        Gauge.builder("meforlife.exports.admission.reserved", budget, b -> (budgetKib - b.availablePermits()) * 1024.0)
+                .description("Estimated bytes held by running exports")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("meforlife.exports.admission.budget", () -> budgetKib * 1024.0)
+                .description("Memory budget shared by running exports")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("meforlife.exports.admission.wait")
+                .description("Time an export waited for memory budget")
+                .register(meterRegistry);
+        timeouts = Counter.builder("meforlife.exports.admission.timeouts")
+                .description("Exports that gave up waiting for memory budget")
+                .register(meterRegistry);
+    }
+
+    /** Waits until {@code estimatedBytes} fit in the budget and reserves them. */
+    public Permit admit(long estimatedBytes) throws TimeoutException, InterruptedException {
+        int kib = (int) Math.min(budgetKib, Math.max(1, (estimatedBytes + 1023) / 1024));
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            if (!budget.tryAcquire(kib, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new TimeoutException("Export needs about " + estimatedBytes / (1024 * 1024)
+                        + " MB and the server is busy, try again later.");
+            }
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return new Permit(kib);
+    }
+
+    public long getBudgetBytes() {
+        return budgetKib * 1024L;
+    }
+
+    public long getAvailableBytes() {
+        return budget.availablePermits() * 1024L;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.MeForLife.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Finished export files on disk, so that repeating an export is a file copy instead of a render.
+ *
+ * <p>Callers key an export by everything its content depends on, including the newest message of
+ * the day, so a new message simply leads to a different key and the old entry ages out. Files are
+ * named after the SHA-256 of their key in {@code meforlife.exports.cache.dir} and survive restarts.
+ * Entries older than {@code meforlife.exports.cache.ttl-minutes} are dropped, and the least
+ * recently used ones go once the directory exceeds {@code meforlife.exports.cache.max-bytes}.
+ * Files are handed out as hard links where the filesystem allows it, so evicting an entry never
+ * affects a file already handed out.</p>
+ */
+@Service
+public class ExportCache {
+
+    private record Entry(long size, Instant createdAt) {
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    private final Duration ttl;
+
+    // access-ordered, eldest first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ExportCache(@Value("${meforlife.exports.cache.dir:data/export-cache}") String dir,
+                       @Value("${meforlife.exports.cache.max-bytes:536870912}") long maxBytes,
+                       @Value("${meforlife.exports.cache.ttl-minutes:1440}") long ttlMinutes) throws IOException {
+        this.dir = Path.of(dir);
+        this.maxBytes = maxBytes;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        Files.createDirectories(this.dir);
+        index();
+    }
+
+    /** Copies the export cached under {@code key} to {@code target}; false if there is none. */
+    public boolean restore(String key, Path target) throws IOException {
+        String name = fileName(key);
+        synchronized (entries) {
+            Entry entry = entries.get(name);
+            if (entry != null && isExpired(entry)) {
+                remove(name);
+                entry = null;
+            }
+            if (entry != null) {
+                try {
+                    linkOrCopy(dir.resolve(name), target);
+                    hits.incrementAndGet();
+                    return true;
+                } catch (NoSuchFileException e) {
+                    // deleted behind our back
+                    remove(name);
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /** Adds a freshly rendered export under {@code key}; the caller keeps its file. */
+    public void store(String key, Path file) throws IOException {
+        String name = fileName(key);
+        Path temp = dir.resolve(name + "." + UUID.randomUUID() + ".tmp");
+        try {
+            linkOrCopy(file, temp);
+            synchronized (entries) {
+                Files.move(temp, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Entry previous = entries.put(name, new Entry(Files.size(dir.resolve(name)), Instant.now()));
+                if (previous != null) {
+                    cachedBytes -= previous.size();
+                }
+                cachedBytes += entries.get(name).size();
+                evict();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Drops every entry past its TTL; called periodically by the export cleaner. */
+    public void deleteExpired() {
+        synchronized (entries) {
+            List<String> expired = entries.entrySet().stream()
+                    .filter(entry -> isExpired(entry.getValue()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            expired.forEach(this::remove);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getCachedBytes() {
+        synchronized (entries) {
+            return cachedBytes;
+        }
+    }
+
+    // empties the cache, for tests that must not see exports of an earlier run
+    void clear() {
+        synchronized (entries) {
+            List.copyOf(entries.keySet()).forEach(this::remove);
+        }
+    }
+
+    private void index() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> existing = files.filter(Files::isRegularFile).toList();
+            // oldest first, so they are the first to be evicted
+            existing.stream()
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        if (name.endsWith(".tmp")) {
+                            deleteQuietly(file);
+                            return;
+                        }
+                        try {
+                            Entry entry = new Entry(Files.size(file), lastModified(file).toInstant());
+                            entries.put(name, entry);
+                            cachedBytes += entry.size();
+                        } catch (IOException e) {
+                            System.out.println("Could not index cached export " + file);
+                        }
+                    });
+        }
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (cachedBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> entry = eldest.next();
+            cachedBytes -= entry.getValue().size();
+            eldest.remove();
+            deleteQuietly(dir.resolve(entry.getKey()));
+        }
+    }
+
+    private void remove(String name) {
+        Entry entry = entries.remove(name);
+        if (entry != null) {
+            cachedBytes -= entry.size();
+            deleteQuietly(dir.resolve(name));
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        return entry.createdAt().plus(ttl).isBefore(Instant.now());
+    }
+
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (NoSuchFileException e) {
+            throw e;
+        } catch (IOException | UnsupportedOperationException e) {
+            // no hard links here, e.g. another filesystem
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("Could not delete cached export " + file);
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.ExportJob;
+import com.example.MeForLife.repo.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Renders chat exports in the background so request threads only submit and poll.
+ *
+ * <p>Jobs run on {@code meforlife.exports.workers} threads behind a queue of
+ * {@code meforlife.exports.queue-capacity}; {@link #submit} throws
+ * {@link RejectedExecutionException} when that queue is full. A job that is still queued or
+ * running is returned again for an identical request instead of rendering twice. Finished files
+ * live in {@code meforlife.exports.dir} and are deleted, together with the job, once they are
+ * older than {@code meforlife.exports.ttl-minutes}. The owner is notified on
+ * {@code /user/queue/exports} when a job finishes.</p>
+ *
+ * <p>Rendered files are also kept in the {@link ExportCache}, keyed by the newest message of the
+ * day, so repeating an export of an unchanged day only copies the earlier file. Queue depth,
+ * render time and file sizes are published as {@code meforlife.exports.*} metrics.</p>
+ */
+@Service
+public class ExportJobService {
+
+    public static final String NOTIFY_DESTINATION = "/queue/exports";
+    private static final String BACKGROUND = "chat1";
+
+    private record Entry(ExportJob job, boolean email, CompletableFuture<ExportJob> done) {
+    }
+
+    @Autowired
+    private ChatExportService chatExportService;
+
+    @Autowired
+    private ExportCache exportCache;
+
+    @Autowired
+    private BackgroundRegistry backgroundRegistry;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private UserRepository urepo;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${meforlife.exports.dir:data/exports}")
+    private String exportDir;
+
+    @Value("${meforlife.exports.workers:2}")
+    private int workerCount;
+
+    @Value("${meforlife.exports.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${meforlife.exports.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    // "vector" draws text and bubbles as PDF operators, "raster" embeds the rendered page images
+    @Value("${meforlife.exports.pdf-renderer:vector}")
+    private String pdfRenderer;
+
+    private final Map<String, Entry> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Entry> inFlight = new ConcurrentHashMap<>();
+    private Path dir;
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService cleaner;
+
+    @PostConstruct
+    public void start() throws IOException {
+        dir = Path.of(exportDir);
+        Files.createDirectories(dir);
+        // jobs are not kept across restarts, so neither are their files
+        try (Stream<Path> leftovers = Files.list(dir)) {
+            leftovers.forEach(this::deleteQuietly);
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "chat-export-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chat-export-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("meforlife.exports.queue.depth", workers, pool -> pool.getQueue().size())
+                .description("Export jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("meforlife.exports.running", workers, ThreadPoolExecutor::getActiveCount)
+                .description("Export jobs being rendered")
+                .register(meterRegistry);
+        FunctionCounter.builder("meforlife.exports.cache.hits", exportCache, ExportCache::getHits)
+                .register(meterRegistry);
+        FunctionCounter.builder("meforlife.exports.cache.misses", exportCache, ExportCache::getMisses)
+                .register(meterRegistry);
+        Gauge.builder("meforlife.exports.cache.size", exportCache, ExportCache::getCachedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        cleaner.scheduleWithFixedDelay(() -> {
+            deleteExpired();
+            exportCache.deleteExpired();
+        }, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        cleaner.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Queues an export of one day of a conversation as {@code png} or {@code pdf}. With
+     * {@code email} the finished file is also mailed to the user, as {@code /chat-image} always did.
+     */
+    public ExportJob submit(String format, Long conversationID, String date, String loggedUser, boolean email) {
+        if (!"png".equals(format) && !"pdf".equals(format)) {
+            throw new IllegalArgumentException("Unsupported export format " + format);
+        }
+        String key = format + '|' + conversationID + '|' + date + '|' + loggedUser + '|' + email;
+        synchronized (inFlight) {
+            Entry running = inFlight.get(key);
+            if (running != null) {
+                return running.job();
+            }
+            Entry entry = new Entry(
+                    new ExportJob(UUID.randomUUID().toString(), format, conversationID, date, loggedUser),
+                    email, new CompletableFuture<>());
+            jobs.put(entry.job().getId(), entry);
+            inFlight.put(key, entry);
+            try {
+                workers.execute(() -> run(key, entry));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(entry.job().getId());
+                inFlight.remove(key);
+                throw e;
+            }
+            return entry.job();
+        }
+    }
+
+    public Optional<ExportJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(Entry::job);
+    }
+
+    /** Completes with the job once it is done or failed. */
+    public CompletableFuture<ExportJob> completion(String id) {
+        Entry entry = jobs.get(id);
+        return entry != null ? entry.done() : CompletableFuture.failedFuture(new IllegalArgumentException(id));
+    }
+
+    /** The rendered file of a finished job, empty while it is running, failed or expired. */
+    public Optional<Path> result(String id) {
+        Entry entry = jobs.get(id);
+        if (entry == null || entry.job().getStatus() != ExportJob.Status.DONE) {
+            return Optional.empty();
+        }
+        Path file = fileOf(entry.job());
+        return Files.exists(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private void run(String key, Entry entry) {
+        ExportJob job = entry.job();
+        job.setStatus(ExportJob.Status.RUNNING);
+        try {
+            Path file = render(job);
+            job.setSize(Files.size(file));
+            if (entry.email()) {
+                mail(job, file);
+            }
+            job.setStatus(ExportJob.Status.DONE);
+        } catch (Exception e) {
+            job.setError(e.getMessage());
+            job.setStatus(ExportJob.Status.FAILED);
+            System.out.println("Export " + job.getId() + " failed: " + e.getMessage());
+        } finally {
+            job.setFinishedAt(Instant.now());
+            inFlight.remove(key);
+            entry.done().complete(job);
+            notifyOwner(job);
+        }
+    }
+
+    private Path render(ExportJob job) throws Exception {
+        long start = System.nanoTime();
+        Path file = fileOf(job);
+        Long latestMessageId = chatExportService.findLatestMessageIdOfDay(job.getConversationID(), job.getDate());
+        if (latestMessageId == null) {
+            throw new RuntimeException("No messages found for this date.");
+        }
+        String cacheKey = cacheKey(job, latestMessageId);
+        if (exportCache.restore(cacheKey, file)) {
+            recordRender(job, start, file, true);
+            return file;
+        }
+
+        Path temp = Files.createTempFile(dir, job.getId(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                if ("png".equals(job.getFormat())) {
+                    chatExportService.writeChatPNG(
+                            job.getConversationID(), job.getDate(), BACKGROUND, job.getLoggedUser(), out);
+                } else if ("vector".equals(pdfRenderer)) {
+                    chatExportService.writeChatPDF(
+                            job.getConversationID(), job.getDate(), BACKGROUND, job.getLoggedUser(), out);
+                } else {
+                    chatExportService.writeRasterPDF(
+                            job.getConversationID(), job.getDate(), BACKGROUND, job.getLoggedUser(), out);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        recordRender(job, start, file, false);
+        try {
+            exportCache.store(cacheKey, file);
+        } catch (IOException e) {
+            System.out.println("Could not cache export " + job.getId() + ": " + e.getMessage());
+        }
+        return file;
+    }
+
+    // time from start to file, including any wait for memory in ExportAdmission, and the file size
+    private void recordRender(ExportJob job, long start, Path file, boolean cached) throws IOException {
+        String cache = cached ? "hit" : "miss";
+        Timer.builder("meforlife.exports.render")
+                .description("Time to produce an export file")
+                .tags("format", job.getFormat(), "cache", cache)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("meforlife.exports.bytes")
+                .description("Size of export files")
+                .baseUnit("bytes")
+                .tags("format", job.getFormat(), "cache", cache)
+                .register(meterRegistry)
+                .record(Files.size(file));
+    }
+
+    // everything the rendered file depends on; a new message of the day changes latestMessageId
+    private String cacheKey(ExportJob job, long latestMessageId) throws IOException {
+        String renderer = "pdf".equals(job.getFormat()) ? pdfRenderer : "raster";
+        Optional<Resource> background = backgroundRegistry.resource(BACKGROUND);
+        long backgroundVersion = background.isPresent() ? background.get().lastModified() : 0;
+        return job.getFormat() + '|' + renderer + '|' + job.getConversationID() + '|' + job.getDate() + '|'
+                + BACKGROUND + '@' + backgroundVersion + '|' + job.getLoggedUser() + '|' + latestMessageId;
+    }
+
+    private void mail(ExportJob job, Path file) throws IOException {
+        Optional<String> email = urepo.getEmailByUser(job.getLoggedUser());
+        if (email.isEmpty()) {
+            System.out.println("No email address for " + job.getLoggedUser() + ", export " + job.getId() + " not mailed");
+            return;
+        }
+        String subject = "Chat Export - " + System.currentTimeMillis();
+        // queued in the outbox; the dispatcher sends it after the job has finished
+        emailService.sendChatExportEmail(email.get(), subject, "Your exported chat is attached." + subject,
+                file, subject + "." + job.getFormat());
+    }
+
+    private void notifyOwner(ExportJob job) {
+        if (job.getLoggedUser() == null) {
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSendToUser(job.getLoggedUser(), NOTIFY_DESTINATION, job);
+        } catch (Exception e) {
+            System.out.println("Could not notify " + job.getLoggedUser() + " about export " + job.getId());
+        }
+    }
+
+    void deleteExpired() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(ttlMinutes));
+        jobs.values().removeIf(entry -> {
+            Instant finishedAt = entry.job().getFinishedAt();
+            if (finishedAt == null || finishedAt.isAfter(cutoff)) {
+                return false;
+            }
+            deleteQuietly(fileOf(entry.job()));
+            return true;
+        });
+    }
+
+    private Path fileOf(ExportJob job) {
+        return dir.resolve(job.getId() + "." + job.getFormat());
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("Could not delete export file " + file);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.MeForLife.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BlobStore} on the local filesystem. Blobs live at {@code <dir>/ab/cd/<sha256>}; uploads
+ * are written to a temporary file while hashing and then moved into place atomically, so a
+ * reader never sees a partial blob.
+ */
+@Service
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final Pattern REF = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path tmp;
+    private final long maxSize;
+
+    public FileSystemBlobStore(@Value("${meforlife.blobs.dir:data/blobs}") String dir,
+                               @Value("${meforlife.blobs.max-size:10485760}") long maxSize) throws IOException {
+        this.root = Path.of(dir).toAbsolutePath();
+        this.tmp = root.resolve("tmp");
+        this.maxSize = maxSize;
+        Files.createDirectories(tmp);
+    }
+
+    @Override
+    public String put(InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        Path upload = Files.createTempFile(tmp, "upload-", ".part");
+        try {
+            long size = 0;
+            DigestInputStream in = new DigestInputStream(content, digest);
+            try (OutputStream out = Files.newOutputStream(upload)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxSize) {
+                        throw new TooLargeException(maxSize);
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            String ref = HexFormat.of().formatHex(digest.digest());
+            Path target = path(ref);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(upload, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // stored concurrently by another upload of the same content
+                }
+            }
+            return ref;
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    @Override
+    public Optional<Path> find(String ref) {
+        if (!isRef(ref)) {
+            return Optional.empty();
+        }
+        Path path = path(ref);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public boolean exists(String ref) {
+        return find(ref).isPresent();
+    }
+
+    private boolean isRef(String ref) {
+        return ref != null && REF.matcher(ref).matches();
+    }
+
+    private Path path(String ref) {
+        return root.resolve(ref.substring(0, 2)).resolve(ref.substring(2, 4)).resolve(ref);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.MessageView;
+import com.example.MeForLife.entity.Messages;
+import com.example.MeForLife.repo.MessagesRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Pages through the messages of a conversation by {@code messageID}, newest page first, without
+ * loading image payloads.
+ */
+@Service
+public class MessageHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @Autowired
+    private MessageWriteBehindService messageWriter;
+
+    /**
+     * Messages older than {@code before} (or the newest ones if {@code before} is null), oldest
+     * first. Each message whose date differs from the message before it keeps its
+     * {@code dateTime}, so separators are correct across page boundaries.
+     */
+    public List<MessageView> page(Long conversationId, Long before, Integer limit) {
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+
+        // snapshot unsaved messages before querying, a message leaves this list only once stored
+        List<Messages> unsaved = before == null ? messageWriter.pendingFor(conversationId) : List.of();
+
+        // one extra row: the message just before the page, needed for the first separator
+        List<MessageView> rows = new ArrayList<>(mrepo.findViewsBefore(
+                conversationId, before == null ? Long.MAX_VALUE : before, Limit.of(size + 1)));
+        MessageView previous = rows.size() > size ? rows.remove(size) : null;
+        Collections.reverse(rows);
+
+        long lastStoredId = rows.isEmpty() ? 0L : rows.get(rows.size() - 1).getMessageID();
+        for (Messages message : unsaved) {
+            if (message.getMessageID() > lastStoredId) {
+                rows.add(MessageView.of(message));
+            }
+        }
+
+        String previousDate = previous != null ? normalize(previous.getDateTime()) : null;
+        for (MessageView row : rows) {
+            String date = normalize(row.getDateTime());
+            if (date != null && Objects.equals(date, previousDate)) {
+                row.setDateTime(null);
+            } else {
+                previousDate = date;
+            }
+        }
+        return rows;
+    }
+
+    private String normalize(String date) {
+        return date == null ? null : date.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.Messages;
+import com.example.MeForLife.repo.MessagesRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Write-behind persistence for chat messages.
+ *
+ * <p>{@link #submit} assigns the message id, appends the message to a local journal and returns,
+ * so the caller can broadcast right away. A single flusher thread inserts queued messages with
+ * JDBC batches when {@code meforlife.messages.batch-size} messages are waiting or every
+ * {@code meforlife.messages.flush-interval-ms}. Messages are inserted in id order. A batch that
+ * violates a constraint is split until the offending rows are found; those are appended to
+ * {@code messages.dead-letter} next to the journal and the rest are inserted. Any other failure,
+ * such as the database being down, is retried before anything newer, so order per conversation
+ * is kept and every id up to {@code MAX(messageID)} is stored or dead-lettered. On startup,
+ * journal entries above that id are inserted again.</p>
+ *
+ * <p>At most {@code meforlife.messages.max-pending} messages wait for the database; beyond that
+ * {@link #submit} blocks for up to {@code meforlife.messages.submit-timeout-ms} and then rejects
+ * the message. The journal is truncated whenever everything in it is stored, and rewritten with
+ * only the waiting messages once it grows past {@code meforlife.messages.journal-compact-bytes}.</p>
+ *
+ * <p>Ids come from an in-memory counter, which assumes a single application instance (the STOMP
+ * simple broker already does).</p>
+ */
+@Service
+public class MessageWriteBehindService {
+
+    private static final String INSERT_SQL = "INSERT INTO messages "
+            + "(messageid, content, sender, receiver, date_time, sent_at, conversationid, chat_time, chatimage, "
+            + "chatimage_ref) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${meforlife.messages.batch-size:200}")
+    private int batchSize;
+
+    @Value("${meforlife.messages.flush-interval-ms:50}")
+    private long flushIntervalMillis;
+
+    @Value("${meforlife.messages.journal-dir:data/journal}")
+    private String journalDir;
+
+    @Value("${meforlife.messages.journal-fsync:false}")
+    private boolean journalFsync;
+
+    @Value("${meforlife.messages.journal-compact-bytes:16777216}")
+    private long journalCompactBytes;
+
+    @Value("${meforlife.messages.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${meforlife.messages.submit-timeout-ms:5000}")
+    private long submitTimeoutMillis;
+
+    private final Deque<Messages> pending = new ArrayDeque<>();
+    private Path journalFile;
+    private FileChannel journal;
+    private FileChannel deadLetters;
+    private long lastId;
+    private boolean stopped;
+    private Thread flusher;
+
+    @PostConstruct
+    public void start() throws IOException {
+        journalFile = Path.of(journalDir, "messages.journal");
+        Files.createDirectories(journalFile.getParent());
+        Long storedMax = mrepo.findMaxMessageId();
+        lastId = storedMax != null ? storedMax : 0L;
+
+        int recovered = 0;
+        if (Files.exists(journalFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Messages message;
+                    try {
+                        message = objectMapper.readValue(line, Messages.class);
+                    } catch (IOException e) {
+                        // torn write of the last entry before a crash
+                        System.out.println("Skipping unreadable journal entry");
+                        continue;
+                    }
+                    if (message.getMessageID() != null && message.getMessageID() > lastId) {
+                        pending.addLast(message);
+                        lastId = message.getMessageID();
+                        recovered++;
+                    }
+                }
+            }
+        }
+        journal = openForAppend(journalFile);
+        deadLetters = openForAppend(journalFile.resolveSibling("messages.dead-letter"));
+        if (recovered > 0) {
+            System.out.println("Recovered " + recovered + " unsaved messages from " + journalFile);
+        }
+
+        flusher = new Thread(this::flushLoop, "message-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Assigns the message id and journals a copy of the message, so the caller may keep changing
+     * it. Returns once the message is in the journal; the database insert happens later.
+     *
+     * @throws RejectedExecutionException if too many messages are still waiting for the database
+     */
+    public Messages submit(Messages message) throws IOException {
+        synchronized (this) {
+            long deadline = System.currentTimeMillis() + submitTimeoutMillis;
+            while (pending.size() >= maxPending && !stopped) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new RejectedExecutionException("Too many unsaved messages, try again later");
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting to save the message", e);
+                }
+            }
+            if (stopped) {
+                throw new IllegalStateException("Message writer is shut down");
+            }
+            message.setMessageID(++lastId);
+            Messages stored = copy(message);
+            journal.write(ByteBuffer.wrap((objectMapper.writeValueAsString(stored) + "\n")
+                    .getBytes(StandardCharsets.UTF_8)));
+            if (journalFsync) {
+                journal.force(false);
+            }
+            pending.addLast(stored);
+            if (pending.size() >= batchSize) {
+                notifyAll();
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Copies of the messages of a conversation that are not stored yet, oldest first, so reads can
+     * include them.
+     */
+    public synchronized List<Messages> pendingFor(Long conversationId) {
+        List<Messages> result = new ArrayList<>();
+        for (Messages message : pending) {
+            if (conversationId != null && conversationId.equals(message.getConversationID())) {
+                result.add(copy(message));
+            }
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        synchronized (this) {
+            stopped = true;
+            notifyAll();
+        }
+        flusher.join(30_000);
+        journal.close();
+        deadLetters.close();
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<Messages> batch;
+            synchronized (this) {
+                if (pending.isEmpty() && stopped) {
+                    return;
+                }
+                if (pending.size() < batchSize && !stopped) {
+                    try {
+                        wait(flushIntervalMillis);
+                    } catch (InterruptedException e) {
+                        stopped = true;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    continue;
+                }
+                batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+                for (Messages message : pending) {
+                    if (batch.size() == batchSize) {
+                        break;
+                    }
+                    batch.add(message);
+                }
+            }
+
+            // rows from the front of the batch that are stored or dead-lettered
+            int[] done = new int[1];
+            boolean failed = false;
+            try {
+                store(batch, done);
+            } catch (RuntimeException e) {
+                System.out.println("Storing messages failed, retrying: " + e.getMessage());
+                failed = true;
+            }
+
+            synchronized (this) {
+                for (int i = 0; i < done[0]; i++) {
+                    pending.pollFirst();
+                }
+                if (done[0] > 0) {
+                    // senders waiting for room
+                    notifyAll();
+                    compactJournal();
+                }
+            }
+            if (failed) {
+                pause(1000);
+            }
+        }
+    }
+
+    /**
+     * Inserts the rows in order, splitting a batch that violates a constraint until the rows that
+     * fail on their own are found and dead-lettered. Other failures propagate with {@code done}
+     * counting the rows handled before them.
+     */
+    private void store(List<Messages> rows, int[] done) {
+        try {
+            insert(rows);
+            done[0] += rows.size();
+        } catch (DataIntegrityViolationException e) {
+            if (rows.size() == 1) {
+                deadLetter(rows.get(0), e);
+                done[0]++;
+                return;
+            }
+            int half = rows.size() / 2;
+            store(rows.subList(0, half), done);
+            store(rows.subList(half, rows.size()), done);
+        }
+    }
+
+    private void insert(List<Messages> batch) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(),
+                (statement, message) -> {
+                    statement.setLong(1, message.getMessageID());
+                    statement.setString(2, message.getcontent());
+                    statement.setString(3, message.getSender());
+                    statement.setString(4, message.getReceiver());
+                    statement.setString(5, message.getDateTime());
+                    statement.setTimestamp(6, message.getSentAt() != null ? Timestamp.from(message.getSentAt()) : null);
+                    statement.setObject(7, message.getConversationID());
+                    statement.setString(8, message.getChatTime());
+                    statement.setString(9, message.getChatimage());
+                    statement.setString(10, message.getChatimageRef());
+                }));
+    }
+
+    private static Messages copy(Messages message) {
+        Messages copy = new Messages(message.getMessageID(), message.getcontent(), message.getSender(),
+                message.getReceiver(), message.getDateTime(), message.getConversationID(),
+                message.getChatimage(), message.getChatTime());
+        copy.setChatimageRef(message.getChatimageRef());
+        copy.setSentAt(message.getSentAt());
+        return copy;
+    }
+
+    private void deadLetter(Messages message, DataIntegrityViolationException cause) {
+        System.out.println("Message " + message.getMessageID() + " cannot be stored, moved to dead letters: "
+                + cause.getMostSpecificCause().getMessage());
+        try {
+            deadLetters.write(ByteBuffer.wrap((objectMapper.writeValueAsString(message) + "\n")
+                    .getBytes(StandardCharsets.UTF_8)));
+            deadLetters.force(false);
+        } catch (IOException e) {
+            // the row is already lost to the database; do not let it block everything after it
+            System.out.println("Could not write dead letter " + message.getMessageID() + ": " + e.getMessage());
+        }
+    }
+
+    // called with the lock held, after stored rows were removed from pending
+    private void compactJournal() {
+        try {
+            if (pending.isEmpty()) {
+                journal.truncate(0);
+                return;
+            }
+            if (journal.size() < journalCompactBytes) {
+                return;
+            }
+            // everything up to the oldest pending message is stored, keep only what is still waiting
+            Path compacted = journalFile.resolveSibling("messages.journal.compact");
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Messages message : pending) {
+                    ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(message) + "\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                    while (line.hasRemaining()) {
+                        out.write(line);
+                    }
+                }
+                out.force(false);
+            }
+            Files.move(compacted, journalFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            journal.close();
+            journal = openForAppend(journalFile);
+        } catch (IOException e) {
+            System.out.println("Could not compact message journal: " + e.getMessage());
+        }
+    }
+
+    private static FileChannel openForAppend(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.MeForLife.services;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.IntFunction;
+
+/**
+ * Renders the pages of one export on a shared pool, at most {@code window} pages ahead of the
+ * consumer, and hands them out in page order. Only the pages in that window are in memory.
+ *
+ * <p>{@link #close} cancels pages that have not started, interrupts the ones being rendered and
+ * waits for them to stop, so nothing of the export is still allocating once it returns. The
+ * renderer is expected to check for interruption while it works.</p>
+ */
+final class PageRenderQueue implements AutoCloseable {
+
+    private final Executor pool;
+    private final IntFunction<BufferedImage> renderer;
+    private final FutureTask<BufferedImage>[] pages;
+    private final int window;
+    private int nextToTake;
+
+    // guarded by this
+    private boolean closed;
+    private int running;
+
+    @SuppressWarnings("unchecked")
+    PageRenderQueue(Executor pool, int pageCount, int window, IntFunction<BufferedImage> renderer) {
+        this.pool = pool;
+        this.renderer = renderer;
+        this.pages = new FutureTask[pageCount];
+        this.window = Math.max(1, window);
+        for (int page = 0; page < Math.min(pageCount, this.window); page++) {
+            submit(page);
+        }
+    }
+
+    int size() {
+        return pages.length;
+    }
+
+    /** The next page; pages must be taken in order. */
+    BufferedImage take(int page) throws Exception {
+        if (page != nextToTake) {
+            throw new IllegalStateException("Page " + page + " requested, expected " + nextToTake);
+        }
+        FutureTask<BufferedImage> rendering = pages[page];
+        pages[page] = null;
+        nextToTake++;
+        if (page + window < pages.length) {
+            submit(page + window);
+        }
+        try {
+            return rendering.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        for (FutureTask<BufferedImage> page : pages) {
+            if (page != null) {
+                page.cancel(true);
+            }
+        }
+        boolean interrupted = false;
+        synchronized (this) {
+            while (running > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(int page) {
+        FutureTask<BufferedImage> task = new FutureTask<>(() -> render(page));
+        pages[page] = task;
+        pool.execute(task);
+    }
+
+    private BufferedImage render(int page) {
+        synchronized (this) {
+            if (closed) {
+                throw new CancellationException("Export closed");
+            }
+            running++;
+        }
+        try {
+            return renderer.apply(page);
+        } finally {
+            synchronized (this) {
+                running--;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.MeForLife.services;
+
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+
+/**
+ * The pages of an export stacked into one tall image, for encoders such as the PNG writer that
+ * read an image top to bottom with {@link #getData(Rectangle)}. Each page is a tile that is taken
+ * from the {@link PageRenderQueue} when the encoder reaches it and dropped once it moves on, so
+ * the full image never exists in memory.
+ */
+final class PagedChatImage implements RenderedImage {
+
+    private final PageRenderQueue queue;
+    private final int width;
+    private final int pageHeight;
+    private final ColorModel colorModel;
+    private final SampleModel sampleModel;
+    private BufferedImage page;
+    private int pageIndex = -1;
+
+    PagedChatImage(PageRenderQueue queue, int width, int pageHeight) {
+        this.queue = queue;
+        this.width = width;
+        this.pageHeight = pageHeight;
+        BufferedImage prototype = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        this.colorModel = prototype.getColorModel();
+        this.sampleModel = prototype.getSampleModel().createCompatibleSampleModel(width, pageHeight);
+    }
+
+    @Override
+    public Raster getData(Rectangle rect) {
+        int firstPage = rect.y / pageHeight;
+        int lastPage = (rect.y + rect.height - 1) / pageHeight;
+        if (firstPage == lastPage) {
+            // the common case: rows of a single page, shared without copying
+            int top = firstPage * pageHeight;
+            return pageAt(firstPage).getRaster()
+                    .createChild(rect.x, rect.y - top, rect.width, rect.height, rect.x, rect.y, null);
+        }
+        WritableRaster data = Raster.createWritableRaster(sampleModel.createCompatibleSampleModel(rect.width, rect.height),
+                rect.getLocation());
+        copyInto(data);
+        return data;
+    }
+
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+        WritableRaster target = raster != null ? raster : Raster.createWritableRaster(
+                sampleModel.createCompatibleSampleModel(width, getHeight()), null);
+        copyInto(target);
+        return target;
+    }
+
+    @Override
+    public Raster getData() {
+        return copyData(null);
+    }
+
+    @Override
+    public Raster getTile(int tileX, int tileY) {
+        Raster tile = pageAt(tileY).getRaster();
+        return tile.createTranslatedChild(0, tileY * pageHeight);
+    }
+
+    private void copyInto(WritableRaster target) {
+        Rectangle bounds = target.getBounds();
+        for (int index = bounds.y / pageHeight; index <= (bounds.y + bounds.height - 1) / pageHeight; index++) {
+            Raster tile = getTile(0, index);
+            Rectangle overlap = bounds.intersection(tile.getBounds());
+            if (!overlap.isEmpty()) {
+                target.setRect(tile.createChild(overlap.x, overlap.y, overlap.width, overlap.height,
+                        overlap.x, overlap.y, null));
+            }
+        }
+    }
+
+    private BufferedImage pageAt(int index) {
+        if (index != pageIndex) {
+            try {
+                page = queue.take(index);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not render page " + index, e);
+            }
+            pageIndex = index;
+        }
+        return page;
+    }
+
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return Image.UndefinedProperty;
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    @Override
+    public ColorModel getColorModel() {
+        return colorModel;
+    }
+
+    @Override
+    public SampleModel getSampleModel() {
+        return sampleModel;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return pageHeight * queue.size();
+    }
+
+    @Override
+    public int getMinX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public int getNumXTiles() {
+        return 1;
+    }
+
+    @Override
+    public int getNumYTiles() {
+        return queue.size();
+    }
+
+    @Override
+    public int getMinTileX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinTileY() {
+        return 0;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return width;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return pageHeight;
+    }
+
+    @Override
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    @Override
+    public int getTileGridYOffset() {
+        return 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.repo.ConversationRepo;
+import com.example.MeForLife.repo.MessagesRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills {@code sent_at} of existing messages and {@code created_at} of existing conversations from
+ * their {@code dd-MM-yyyy} / {@code HH:mm} strings, in small keyset batches in the background so
+ * the application keeps serving traffic. The strings were written in the server's time zone, so
+ * that is the zone they are read back in. Until {@link #isComplete()} readers must also look at
+ * rows whose {@code sent_at} is still null.
+ */
+@Service
+public class SentAtBackfill {
+
+    public static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    public static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final String UPDATE_MESSAGE =
+            "UPDATE messages SET sent_at = ? WHERE messageid = ? AND sent_at IS NULL";
+    private static final String UPDATE_CONVERSATION =
+            "UPDATE conversation SET created_at = ? WHERE coversation_id = ? AND created_at IS NULL";
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @Autowired
+    private ConversationRepo crepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${meforlife.sent-at-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${meforlife.sent-at-backfill.batch-size:500}")
+    private int batchSize;
+
+    @Value("${meforlife.sent-at-backfill.pause-ms:50}")
+    private long pauseMillis;
+
+    private volatile boolean complete;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread worker = new Thread(this::backfillAll, "sent-at-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /** The instant a {@code dd-MM-yyyy} date and optional {@code HH:mm} time denote, or null if unparsable. */
+    public static Instant toInstant(String date, String time) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            LocalDate day = LocalDate.parse(date.trim(), DATE);
+            LocalTime at = time != null && !time.isBlank() ? LocalTime.parse(time.trim(), TIME) : LocalTime.MIDNIGHT;
+            return day.atTime(at).atZone(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    void backfillAll() {
+        try {
+            backfillConversations();
+            backfillMessages();
+            complete = true;
+        } catch (Exception e) {
+            System.out.println("sent_at backfill stopped, it resumes on the next start");
+            e.printStackTrace();
+        }
+    }
+
+    private void backfillConversations() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Object[] row : crepo.findWithoutCreatedAt()) {
+            Instant createdAt = toInstant((String) row[1], null);
+            if (createdAt != null) {
+                batch.add(new Object[]{Timestamp.from(createdAt), row[0]});
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_CONVERSATION, batch);
+        }
+    }
+
+    private void backfillMessages() throws InterruptedException {
+        long after = 0L;
+        long updated = 0L;
+        while (true) {
+            List<Object[]> rows = mrepo.findWithoutSentAt(after, Limit.of(batchSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> batch = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                after = (Long) row[0];
+                Instant sentAt = toInstant((String) row[1], (String) row[2]);
+                // rows without a readable date stay null and are skipped on the next batch by the id cursor
+                if (sentAt != null) {
+                    batch.add(new Object[]{Timestamp.from(sentAt), row[0]});
+                }
+            }
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_MESSAGE, batch);
+                updated += batch.size();
+            }
+            if (pauseMillis > 0) {
+                Thread.sleep(pauseMillis);
+            }
+        }
+        if (updated > 0) {
+            System.out.println("Backfilled sent_at of " + updated + " messages");
+        }
+    }
+}
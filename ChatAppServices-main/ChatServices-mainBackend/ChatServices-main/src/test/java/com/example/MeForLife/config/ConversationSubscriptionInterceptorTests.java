@@ -0,0 +1,77 @@
+package com.example.MeForLife.config;
+
+import com.example.MeForLife.repo.ConversationRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConversationSubscriptionInterceptorTests {
+
+    private final ConversationRepo crepo = mock(ConversationRepo.class);
+    private final ConversationSubscriptionInterceptor interceptor = new ConversationSubscriptionInterceptor();
+
+    ConversationSubscriptionInterceptorTests() {
+        ReflectionTestUtils.setField(interceptor, "crepo", crepo);
+        when(crepo.isParticipant(1L, "ann")).thenReturn(true);
+    }
+
+    @Test
+    void letsParticipantsSubscribeToTheirConversationAndUserQueues() {
+        assertThat(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/conversation.1", "ann"), null))
+                .isNotNull();
+        assertThat(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/user/queue/exports", "ann"), null))
+                .isNotNull();
+    }
+
+    @Test
+    void rejectsANonParticipant() {
+        assertRejected(frame(StompCommand.SUBSCRIBE, "/topic/conversation.1", "mallory"));
+        assertRejected(frame(StompCommand.SUBSCRIBE, "/topic/conversation.1", null));
+    }
+
+    @Test
+    void rejectsPatternSubscriptions() {
+        assertRejected(frame(StompCommand.SUBSCRIBE, "/topic/**", "ann"));
+        assertRejected(frame(StompCommand.SUBSCRIBE, "/topic/conversation*", "ann"));
+        assertRejected(frame(StompCommand.SUBSCRIBE, "/topic/conversation.?", "ann"));
+        assertRejected(frame(StompCommand.SUBSCRIBE, "/topic/conversation.{id}", "ann"));
+        assertRejected(frame(StompCommand.SUBSCRIBE, "/user/queue/*", "ann"));
+    }
+
+    @Test
+    void rejectsDestinationsOutsideTheAllowList() {
+        assertRejected(frame(StompCommand.SUBSCRIBE, "/queue/exports", "ann"));
+        assertRejected(frame(StompCommand.SUBSCRIBE, "/topic/other", "ann"));
+        assertRejected(frame(StompCommand.SUBSCRIBE, "/topic/conversation.1.extra", "ann"));
+    }
+
+    @Test
+    void onlyLetsClientsSendToTheApplication() {
+        assertThat(interceptor.preSend(frame(StompCommand.SEND, "/app/chat.sendMessage", "ann"), null)).isNotNull();
+        assertRejected(frame(StompCommand.SEND, "/topic/conversation.1", "ann"));
+        assertRejected(frame(StompCommand.SEND, "/queue/exports", "ann"));
+    }
+
+    private void assertRejected(Message<?> message) {
+        assertThatThrownBy(() -> interceptor.preSend(message, null)).isInstanceOf(MessageDeliveryException.class);
+    }
+
+    private Message<byte[]> frame(StompCommand command, String destination, String username) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        if (username != null) {
+            accessor.setUser(() -> username);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.MeForLife.controller;
+
+import com.example.MeForLife.entity.Conversation;
+import com.example.MeForLife.repo.ConversationRepo;
+import com.example.MeForLife.services.MessageWriteBehindService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class ChatMessageRejectionTests {
+
+    @Autowired
+    @Qualifier("clientInboundChannel")
+    private MessageChannel clientInboundChannel;
+
+    @Autowired
+    @Qualifier("brokerChannel")
+    private AbstractSubscribableChannel brokerChannel;
+
+    @Autowired
+    private ConversationRepo crepo;
+
+    @MockitoBean
+    private MessageWriteBehindService messageWriter;
+
+    @Test
+    void tellsTheSenderWhenTheMessageIsRejected() throws Exception {
+        when(messageWriter.submit(any())).thenThrow(new RejectedExecutionException("Too many unsaved messages"));
+        Long conversationId = crepo.save(new Conversation(null, "ann", "bob", "01-01-2026")).getCoversationId();
+        BlockingQueue<Message<?>> sent = new LinkedBlockingQueue<>();
+        ChannelInterceptor capture = new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                sent.add(message);
+                return message;
+            }
+        };
+        brokerChannel.addInterceptor(capture);
+        try {
+            clientInboundChannel.send(send("{\"content\":\"hi\",\"conversationID\":" + conversationId + "}"));
+
+            Message<?> reply = sent.poll(5, TimeUnit.SECONDS);
+            assertThat(reply).isNotNull();
+            assertThat(SimpMessageHeaderAccessor.getDestination(reply.getHeaders())).endsWith("/queue/errors");
+            assertThat(new String((byte[]) reply.getPayload(), StandardCharsets.UTF_8))
+                    .contains("Too many unsaved messages");
+            // nothing was broadcast to the conversation
+            assertThat(sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        } finally {
+            brokerChannel.removeInterceptor(capture);
+        }
+    }
+
+    private Message<byte[]> send(String json) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setDestination("/app/chat.sendMessage");
+        accessor.setSessionId("session-1");
+        accessor.setSessionAttributes(new HashMap<>());
+        accessor.setUser(() -> "ann");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
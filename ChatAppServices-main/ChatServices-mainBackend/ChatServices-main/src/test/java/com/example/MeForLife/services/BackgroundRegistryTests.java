@@ -0,0 +1,55 @@
+package com.example.MeForLife.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BackgroundRegistryTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void decodesBundledBackgroundsOnceToTheCanvasType() throws Exception {
+        BackgroundRegistry registry = new BackgroundRegistry(dir.toString(), 256L << 20, false);
+
+        BufferedImage first = registry.get("chat1").orElseThrow();
+
+        assertThat(first.getType()).isEqualTo(BufferedImage.TYPE_INT_ARGB);
+        assertThat(registry.get("chat1").orElseThrow()).isSameAs(first);
+        assertThat(registry.get("missing")).isEmpty();
+    }
+
+    @Test
+    void reloadPicksUpBackgroundsAddedToTheDirectory() throws Exception {
+        BackgroundRegistry registry = new BackgroundRegistry(dir.toString(), 256L << 20, false);
+        assertThat(registry.keys()).doesNotContain("beach");
+
+        ImageIO.write(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB), "png", dir.resolve("beach.png").toFile());
+        ImageIO.write(new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB), "png", dir.resolve("chat1.png").toFile());
+        registry.reload();
+
+        assertThat(registry.keys()).contains("beach", "chat1");
+        assertThat(registry.get("beach").orElseThrow().getWidth()).isEqualTo(40);
+        // the directory overrides the bundled background of the same key
+        assertThat(registry.get("chat1").orElseThrow().getWidth()).isEqualTo(20);
+    }
+
+    @Test
+    void keepsDecodedImagesWithinTheByteBudget() throws Exception {
+        ImageIO.write(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "png", dir.resolve("a.png").toFile());
+        ImageIO.write(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "png", dir.resolve("b.png").toFile());
+        // room for one 10x10 ARGB image only
+        BackgroundRegistry registry = new BackgroundRegistry(dir.toString(), 400, false);
+
+        BufferedImage a = registry.get("a").orElseThrow();
+        registry.get("b");
+
+        assertThat(registry.get("a").orElseThrow()).isNotSameAs(a);
+    }
+}
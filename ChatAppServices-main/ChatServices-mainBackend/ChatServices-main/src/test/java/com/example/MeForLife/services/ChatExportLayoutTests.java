@@ -0,0 +1,80 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.Messages;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Dimension;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatExportLayoutTests {
+
+    // every character is 10 wide
+    private static final ChatExportLayout.TextMeasure MONOSPACE = (text, size) -> text.length() * 10f;
+    private static final ChatExportLayout.ImageMeasure SQUARE = message -> Optional.of(new Dimension(700, 700));
+
+    @Test
+    void wrapsOnWordsAndBreaksWordsLongerThanALine() {
+        assertThat(ChatExportLayout.wrap("aaa bbb ccc", 70, MONOSPACE)).containsExactly("aaa bbb", "ccc");
+        assertThat(ChatExportLayout.wrap("abcdefghij", 40, MONOSPACE)).containsExactly("abcd", "efgh", "ij");
+        assertThat(ChatExportLayout.wrap("one\ntwo", 1000, MONOSPACE)).containsExactly("one", "two");
+    }
+
+    @Test
+    void movesWholeBubblesToTheNextPageAndRepeatsNothingButTheHeader() {
+        List<Messages> messages = List.of(text("first", "ann"), text("second", "bob"), text("third", "ann"));
+        // room below the header for two single-line bubbles
+        ChatExportLayout layout = ChatExportLayout.measure(messages, "ann", 800, 150 + 2 * 135 + 50, MONOSPACE, SQUARE);
+
+        assertThat(layout.getPages()).hasSize(2);
+        assertThat(layout.getPages().get(0).blocks()).hasSize(2);
+        ChatExportLayout.Block third = layout.getPages().get(1).blocks().get(0);
+        assertThat(third.lines()).containsExactly("third");
+        assertThat(third.y()).isEqualTo(150);
+        // the logged user's bubbles are on the right
+        assertThat(third.x()).isGreaterThan(layout.getPages().get(0).blocks().get(1).x());
+    }
+
+    @Test
+    void splitsTextTallerThanAPageAndKeepsTheTimeOnTheLastPart() {
+        ChatExportLayout layout = ChatExportLayout.measure(List.of(text("word ".repeat(400), "bob")), "ann",
+                800, 1000, MONOSPACE, SQUARE);
+
+        List<ChatExportLayout.Page> pages = layout.getPages();
+        assertThat(pages.size()).isGreaterThan(1);
+        int lines = 0;
+        for (ChatExportLayout.Page page : pages) {
+            for (ChatExportLayout.Block block : page.blocks()) {
+                assertThat(block.y() + block.height()).isLessThanOrEqualTo(1000 - 50);
+                assertThat(block.time() != null).isEqualTo(page == pages.get(pages.size() - 1));
+                lines += block.lines().size();
+            }
+        }
+        assertThat(lines).isEqualTo(ChatExportLayout.wrap("word ".repeat(400), 450, MONOSPACE).size());
+    }
+
+    @Test
+    void scalesImagesToFitAndStartsANewPageForThem() {
+        List<Messages> messages = List.of(text("hello", "ann"), image("bob"), image("bob"));
+        ChatExportLayout layout = ChatExportLayout.measure(messages, "ann", 800, 800, MONOSPACE, SQUARE);
+
+        assertThat(layout.getPages()).hasSize(2);
+        ChatExportLayout.Block photo = layout.getPages().get(0).blocks().get(1);
+        assertThat(photo.kind()).isEqualTo(ChatExportLayout.Kind.IMAGE);
+        assertThat(photo.width()).isEqualTo(ChatExportLayout.MAX_IMAGE);
+        assertThat(photo.height()).isEqualTo(ChatExportLayout.MAX_IMAGE);
+        assertThat(layout.getPages().get(1).blocks().get(0).y()).isEqualTo(150);
+    }
+
+    private static Messages text(String content, String sender) {
+        return new Messages(null, content, sender, null, "07-01-2026", 1L, null, "12:00");
+    }
+
+    private static Messages image(String sender) {
+        Messages message = text(null, sender);
+        message.setChatimageRef("photo");
+        return message;
+    }
+}
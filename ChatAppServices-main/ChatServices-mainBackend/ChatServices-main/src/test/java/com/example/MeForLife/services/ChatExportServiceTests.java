@@ -0,0 +1,97 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.Messages;
+import com.example.MeForLife.repo.MessagesRepo;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfIndirectReference;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ChatExportServiceTests {
+
+    private static final long CONVERSATION = 45L;
+    private static final String DATE = "07-01-2026";
+
+    @Autowired
+    private ChatExportService chatExportService;
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Test
+    void vectorPdfKeepsTextSearchableAndEmbedsEachImageOnce() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", png);
+        String photo = blobStore.put(new ByteArrayInputStream(png.toByteArray()));
+
+        for (int i = 0; i < 40; i++) {
+            save(CONVERSATION, "message number " + i, i % 2 == 0 ? "ann" : "bob", null);
+        }
+        save(CONVERSATION, null, "ann", photo);
+        save(CONVERSATION, null, "bob", photo);
+
+        ByteArrayOutputStream vector = new ByteArrayOutputStream();
+        chatExportService.writeChatPDF(CONVERSATION, DATE, "chat1", "ann", vector);
+        ByteArrayOutputStream raster = new ByteArrayOutputStream();
+        chatExportService.writeRasterPDF(CONVERSATION, DATE, "chat1", "ann", raster);
+
+        PdfReader reader = new PdfReader(vector.toByteArray());
+        assertThat(reader.getNumberOfPages()).isGreaterThan(1);
+        assertThat(new PdfTextExtractor(reader).getTextFromPage(1)).contains(DATE, "message number 0");
+
+        Set<Integer> images = new HashSet<>();
+        for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+            PdfDictionary xObjects = reader.getPageN(page).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+            for (PdfName name : xObjects.getKeys()) {
+                images.add(((PdfIndirectReference) xObjects.get(name)).getNumber());
+            }
+        }
+        // the background and the photo, however many pages and messages show them
+        assertThat(images).hasSize(2);
+        assertThat(vector.size()).isLessThan(raster.size());
+        assertThat(new PdfReader(raster.toByteArray()).getNumberOfPages()).isEqualTo(reader.getNumberOfPages());
+    }
+
+    @Test
+    void pngStacksOnePageOfBackgroundPerLayoutPage() throws Exception {
+        long conversation = CONVERSATION + 1;
+        // texts that wrap over several lines, more than fit on two pages
+        for (int i = 0; i < 40; i++) {
+            save(conversation, "word ".repeat(50), i % 2 == 0 ? "ann" : "bob", null);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chatExportService.writeChatPNG(conversation, DATE, "chat1", "ann", out);
+
+        BufferedImage background = ImageIO.read(getClass().getClassLoader().getResourceAsStream("chat-backgrounds/chat1.jpg"));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(image.getWidth()).isEqualTo(background.getWidth());
+        assertThat(image.getHeight() % background.getHeight()).isZero();
+        assertThat(image.getHeight() / background.getHeight()).isGreaterThan(2);
+    }
+
+    private void save(long conversation, String content, String sender, String imageRef) {
+        Messages message = new Messages(null, content, sender, "ann".equals(sender) ? "bob" : "ann",
+                DATE, conversation, null, "12:00");
+        message.setSentAt(SentAtBackfill.toInstant(DATE, "12:00"));
+        message.setChatimageRef(imageRef);
+        mrepo.save(message);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.Messages;
+import com.example.MeForLife.repo.MessagesRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+class ChatImageMigrationTests {
+
+    @Autowired
+    private ChatImageMigration chatImageMigration;
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private ChatImageService chatImageService;
+
+    @Test
+    void keepsASentAtBackfilledWhileTheImageMoves() throws Exception {
+        Long id = mrepo.save(new Messages(null, "photo", "ann", "bob", "01-01-2026", 44L,
+                Base64.getEncoder().encodeToString("image".getBytes()), "10:00")).getMessageID();
+        Instant sentAt = Instant.parse("2026-01-01T10:00:00Z");
+        // the backfill sets sent_at after the migration has loaded the row
+        doAnswer(invocation -> {
+            jdbcTemplate.update("UPDATE messages SET sent_at = ? WHERE messageid = ?", Timestamp.from(sentAt), id);
+            return invocation.callRealMethod();
+        }).when(chatImageService).externalize(any());
+
+        chatImageMigration.migrateAll();
+
+        Messages migrated = mrepo.findById(id).orElseThrow();
+        assertThat(migrated.getChatimage()).isNull();
+        assertThat(migrated.getChatimageRef()).isNotNull();
+        assertThat(migrated.getSentAt()).isNotNull();
+        assertThat(migrated.getSentAt().truncatedTo(ChronoUnit.SECONDS)).isEqualTo(sentAt);
+    }
+}
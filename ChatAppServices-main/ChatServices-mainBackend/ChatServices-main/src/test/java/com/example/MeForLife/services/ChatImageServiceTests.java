@@ -0,0 +1,66 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.Messages;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatImageServiceTests {
+
+    @TempDir
+    Path dir;
+
+    private FileSystemBlobStore blobStore;
+    private ChatImageService chatImageService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        blobStore = new FileSystemBlobStore(dir.toString(), 16);
+        chatImageService = new ChatImageService();
+        ReflectionTestUtils.setField(chatImageService, "blobStore", blobStore);
+    }
+
+    @Test
+    void movesAnInlineImageIntoTheBlobStore() throws Exception {
+        Messages message = message("data:image/png;base64,"
+                + Base64.getEncoder().encodeToString("image".getBytes(StandardCharsets.UTF_8)));
+
+        chatImageService.externalize(message);
+
+        assertThat(message.getChatimage()).isNull();
+        assertThat(Files.readString(blobStore.find(message.getChatimageRef()).orElseThrow())).isEqualTo("image");
+    }
+
+    @Test
+    void dropsMalformedBase64AndKeepsTheText() throws Exception {
+        // data after the padding
+        Messages message = message("QUJD=QUJD");
+
+        chatImageService.externalize(message);
+
+        assertThat(message.getChatimage()).isNull();
+        assertThat(message.getChatimageRef()).isNull();
+        assertThat(message.getcontent()).isEqualTo("caption");
+    }
+
+    @Test
+    void rejectsAnImageOverTheSizeLimit() {
+        Messages message = message(Base64.getEncoder().encodeToString(new byte[17]));
+
+        assertThatThrownBy(() -> chatImageService.externalize(message))
+                .isInstanceOf(BlobStore.TooLargeException.class);
+    }
+
+    private Messages message(String chatimage) {
+        return new Messages(1L, "caption", "ann", "bob", "01-01-2026", 1L, chatimage, "10:00");
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.OutboxEmail;
+import com.example.MeForLife.repo.OutboxEmailRepo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class EmailDispatcherTests {
+
+    private static final StubSmtpServer smtp = startSmtp();
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailDispatcher dispatcher;
+
+    @Autowired
+    private OutboxEmailRepo outboxRepo;
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.port", smtp::getPort);
+        // own database, the outbox is not shared with the other test contexts
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:outboxdb;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterAll
+    static void stopSmtp() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void sendsQueuedEmailsAsOneBatchOverOneConnection() throws Exception {
+        Path attachment = Files.createTempFile("export", ".png");
+        Files.write(attachment, new byte[] {1, 2, 3});
+        OutboxEmail withAttachment = emailService.sendChatExportEmail(
+                "ann@example.test", "Chat Export", "attached", attachment, "chat.png");
+        emailService.sendChatExportEmail("bob@example.test", "Hello", "one", null, null);
+        emailService.sendChatExportEmail("cid@example.test", "Hello", "two", null, null);
+        int connectionsBefore = smtp.getConnections();
+        int deliveriesBefore = smtp.getDeliveries().size();
+
+        assertThat(dispatcher.dispatchDue()).isEqualTo(3);
+
+        assertThat(smtp.getConnections() - connectionsBefore).isEqualTo(1);
+        assertThat(smtp.getDeliveries().subList(deliveriesBefore, smtp.getDeliveries().size()))
+                .extracting(StubSmtpServer.Delivery::recipient)
+                .containsExactly("ann@example.test", "bob@example.test", "cid@example.test");
+        OutboxEmail sent = outboxRepo.findById(withAttachment.getId()).orElseThrow();
+        assertThat(sent.getStatus()).isEqualTo(OutboxEmail.Status.SENT);
+        assertThat(Path.of("target/test-outbox", withAttachment.getAttachmentFile())).doesNotExist();
+    }
+
+    @Test
+    void retriesRejectedEmailsWithBackoff() throws Exception {
+        OutboxEmail rejected = emailService.sendChatExportEmail("nobody@reject.test", "Hello", "text", null, null);
+        OutboxEmail accepted = emailService.sendChatExportEmail("dan@example.test", "Hello", "text", null, null);
+
+        dispatcher.dispatchDue();
+
+        assertThat(outboxRepo.findById(accepted.getId()).orElseThrow().getStatus())
+                .isEqualTo(OutboxEmail.Status.SENT);
+        OutboxEmail retry = outboxRepo.findById(rejected.getId()).orElseThrow();
+        assertThat(retry.getStatus()).isEqualTo(OutboxEmail.Status.PENDING);
+        assertThat(retry.getAttempts()).isEqualTo(1);
+        assertThat(retry.getLastError()).isNotBlank();
+        assertThat(retry.getNextAttemptAt()).isAfter(Instant.now().plusSeconds(20));
+    }
+
+    private static StubSmtpServer startSmtp() {
+        try {
+            return new StubSmtpServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
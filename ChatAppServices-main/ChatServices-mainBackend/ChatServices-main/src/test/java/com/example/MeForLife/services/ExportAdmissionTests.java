@@ -0,0 +1,52 @@
+package com.example.MeForLife.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExportAdmissionTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExportAdmission admission = new ExportAdmission(meterRegistry, 10 * 1024 * 1024, 200);
+
+    @Test
+    void exportsOverTheBudgetWaitAndTimeOut() throws Exception {
+        try (ExportAdmission.Permit first = admission.admit(6 * 1024 * 1024)) {
+            assertThat(admission.getAvailableBytes()).isEqualTo(4 * 1024 * 1024);
+            assertThatThrownBy(() -> admission.admit(6 * 1024 * 1024)).isInstanceOf(TimeoutException.class);
+            assertThat(meterRegistry.get("meforlife.exports.admission.timeouts").counter().count()).isEqualTo(1);
+
+            // a small one still fits next to it
+            admission.admit(1024 * 1024).close();
+        }
+        assertThat(admission.getAvailableBytes()).isEqualTo(admission.getBudgetBytes());
+    }
+
+    @Test
+    void waitingExportsRunOnceMemoryIsReleased() throws Exception {
+        ExportAdmission patient = new ExportAdmission(meterRegistry, 10 * 1024 * 1024, 10_000);
+        // larger than the whole budget, so it runs alone
+        ExportAdmission.Permit huge = patient.admit(50L * 1024 * 1024);
+        assertThat(patient.getAvailableBytes()).isZero();
+
+        CompletableFuture<ExportAdmission.Permit> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return patient.admit(1024 * 1024);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertThat(waiting).isNotDone();
+
+        huge.close();
+        waiting.get(5, TimeUnit.SECONDS).close();
+        assertThat(patient.getAvailableBytes()).isEqualTo(patient.getBudgetBytes());
+    }
+}
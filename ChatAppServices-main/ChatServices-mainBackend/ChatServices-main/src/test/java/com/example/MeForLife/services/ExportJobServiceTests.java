@@ -0,0 +1,96 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.ExportJob;
+import com.example.MeForLife.entity.Messages;
+import com.example.MeForLife.repo.MessagesRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ExportJobServiceTests {
+
+    private static final long CONVERSATION = 44L;
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private ExportCache exportCache;
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @Test
+    void rendersInTheBackgroundAndKeepsTheFileOnDisk() throws Exception {
+        save("hello", "ann", "bob", "09:30");
+        save("hi ann", "bob", "ann", "09:31");
+
+        ExportJob job = exportJobService.submit("pdf", CONVERSATION, "05-01-2026", "ann", false);
+        ExportJob done = exportJobService.completion(job.getId()).get(30, TimeUnit.SECONDS);
+
+        assertThat(done.getStatus()).isEqualTo(ExportJob.Status.DONE);
+        Path file = exportJobService.result(job.getId()).orElseThrow();
+        assertThat(Files.size(file)).isEqualTo(done.getSize()).isPositive();
+        assertThat(new String(Files.readAllBytes(file), 0, 5)).isEqualTo("%PDF-");
+    }
+
+    @Test
+    void reportsFailuresOnTheJob() throws Exception {
+        ExportJob job = exportJobService.submit("png", CONVERSATION, "06-01-2026", "ann", false);
+        ExportJob done = exportJobService.completion(job.getId()).get(30, TimeUnit.SECONDS);
+
+        assertThat(done.getStatus()).isEqualTo(ExportJob.Status.FAILED);
+        assertThat(done.getError()).isEqualTo("No messages found for this date.");
+        assertThat(exportJobService.result(job.getId())).isEmpty();
+    }
+
+    @Test
+    void repeatsComeFromTheCacheUntilTheDayGetsANewMessage() throws Exception {
+        exportCache.clear();
+        save("08-01-2026", "morning", "ann", "bob", "08:00");
+
+        ExportJob first = run("png", "08-01-2026");
+        long misses = exportCache.getMisses();
+        long hits = exportCache.getHits();
+
+        ExportJob repeat = run("png", "08-01-2026");
+        assertThat(exportCache.getHits()).isEqualTo(hits + 1);
+        assertThat(Files.readAllBytes(exportJobService.result(repeat.getId()).orElseThrow()))
+                .isEqualTo(Files.readAllBytes(exportJobService.result(first.getId()).orElseThrow()));
+
+        // another viewer sees the bubbles mirrored, so it is a different export
+        ExportJob otherViewer = exportJobService.completion(
+                exportJobService.submit("png", CONVERSATION, "08-01-2026", "bob", false).getId()).get(30, TimeUnit.SECONDS);
+        assertThat(otherViewer.getStatus()).isEqualTo(ExportJob.Status.DONE);
+        assertThat(exportCache.getMisses()).isEqualTo(misses + 1);
+
+        save("08-01-2026", "evening", "bob", "ann", "20:00");
+        ExportJob afterNewMessage = run("png", "08-01-2026");
+        assertThat(exportCache.getMisses()).isEqualTo(misses + 2);
+        assertThat(afterNewMessage.getSize()).isNotEqualTo(first.getSize());
+    }
+
+    private ExportJob run(String format, String date) throws Exception {
+        ExportJob job = exportJobService.submit(format, CONVERSATION, date, "ann", false);
+        ExportJob done = exportJobService.completion(job.getId()).get(30, TimeUnit.SECONDS);
+        assertThat(done.getStatus()).isEqualTo(ExportJob.Status.DONE);
+        return done;
+    }
+
+    private void save(String content, String sender, String receiver, String time) {
+        save("05-01-2026", content, sender, receiver, time);
+    }
+
+    private void save(String date, String content, String sender, String receiver, String time) {
+        Messages message = new Messages(null, content, sender, receiver, date, CONVERSATION, null, time);
+        message.setSentAt(SentAtBackfill.toInstant(date, time));
+        mrepo.save(message);
+    }
+}
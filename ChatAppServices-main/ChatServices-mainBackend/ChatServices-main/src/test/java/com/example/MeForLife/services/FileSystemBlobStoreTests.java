@@ -0,0 +1,45 @@
+package com.example.MeForLife.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileSystemBlobStoreTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storesContentOnceUnderItsSha256() throws Exception {
+        FileSystemBlobStore store = new FileSystemBlobStore(dir.toString(), 1024);
+
+        String first = store.put(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)));
+        String second = store.put(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(first)
+                .isEqualTo(second)
+                .isEqualTo("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824");
+        assertThat(Files.readString(store.find(first).orElseThrow())).isEqualTo("hello");
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+        }
+    }
+
+    @Test
+    void rejectsOversizedAndMalformedReferences() throws Exception {
+        FileSystemBlobStore store = new FileSystemBlobStore(dir.toString(), 4);
+
+        assertThatThrownBy(() -> store.put(new ByteArrayInputStream(new byte[5])))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.find("../../etc/passwd")).isEmpty();
+        assertThat(store.exists("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824")).isFalse();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.controller.BlobController;
+import com.example.MeForLife.entity.MessageView;
+import com.example.MeForLife.entity.Messages;
+import com.example.MeForLife.repo.MessagesRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MessageHistoryServiceTests {
+
+    private static final long CONVERSATION = 42L;
+
+    @Autowired
+    private MessageHistoryService messageHistoryService;
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @Autowired
+    private BlobController blobController;
+
+    @Test
+    void pagesByMessageIdAndKeepsDateSeparatorsAcrossPages() {
+        List<Long> ids = new ArrayList<>();
+        for (String date : new String[] {"01-01-2026", "01-01-2026", "02-01-2026", "02-01-2026", "02-01-2026"}) {
+            ids.add(mrepo.save(new Messages(null, "hi " + date, "ann", "bob", date, CONVERSATION, null, "10:00"))
+                    .getMessageID());
+        }
+
+        List<MessageView> newest = messageHistoryService.page(CONVERSATION, null, 2);
+        assertThat(newest).extracting(MessageView::getMessageID).containsExactly(ids.get(3), ids.get(4));
+        assertThat(newest).extracting(MessageView::getDateTime).containsExactly(null, null);
+
+        List<MessageView> older = messageHistoryService.page(CONVERSATION, ids.get(3), 2);
+        assertThat(older).extracting(MessageView::getMessageID).containsExactly(ids.get(1), ids.get(2));
+        assertThat(older).extracting(MessageView::getDateTime).containsExactly(null, "02-01-2026");
+
+        List<MessageView> oldest = messageHistoryService.page(CONVERSATION, ids.get(1), 2);
+        assertThat(oldest).extracting(MessageView::getMessageID).containsExactly(ids.get(0));
+        assertThat(oldest).extracting(MessageView::getDateTime).containsExactly("01-01-2026");
+    }
+
+    @Test
+    void flagsImagesThatAreStillInlineAndServesThem() throws Exception {
+        // PNG signature followed by arbitrary bytes, enough to be recognised as image/png
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0, 0, 13};
+        Long unmigrated = mrepo.save(new Messages(null, "photo", "ann", "bob", "03-01-2026", 43L,
+                Base64.getEncoder().encodeToString(png), "10:00")).getMessageID();
+
+        List<MessageView> page = messageHistoryService.page(43L, null, 10);
+        assertThat(page).singleElement().satisfies(view -> {
+            assertThat(view.getChatimageRef()).isNull();
+            assertThat(view.isHasInlineImage()).isTrue();
+        });
+
+        ResponseEntity<Resource> image = blobController.messageImage(unmigrated);
+        assertThat(image.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+        try (InputStream in = image.getBody().getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(png);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.Messages;
+import com.example.MeForLife.repo.MessagesRepo;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+// the recovery test expects the first ids after the journal
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class MessageWriteBehindServiceTests {
+
+    private static Path journalDir;
+
+    @Autowired
+    private MessageWriteBehindService messageWriter;
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        journalDir = Files.createTempDirectory("message-journal");
+        // an entry that was journaled but not inserted before the previous shutdown
+        Files.writeString(journalDir.resolve("messages.journal"),
+                "{\"messageID\":7,\"content\":\"from journal\",\"sender\":\"ann\",\"receiver\":\"bob\","
+                        + "\"dateTime\":\"01-01-2026\",\"conversationID\":1,\"chatTime\":\"10:00\"}\n"
+                        + "{\"messageID\":8,\"content\":\"torn wri");
+        registry.add("meforlife.messages.journal-dir", journalDir::toString);
+        registry.add("meforlife.messages.flush-interval-ms", () -> "10");
+    }
+
+    @Test
+    @Order(1)
+    void recoversJournalAndInsertsSubmittedMessagesInOrder() throws Exception {
+        Messages first = message("first");
+        Messages second = message("second");
+        messageWriter.submit(first);
+        messageWriter.submit(second);
+
+        assertThat(first.getMessageID()).isEqualTo(8L);
+        assertThat(second.getMessageID()).isEqualTo(9L);
+
+        List<Messages> stored = awaitStored(3);
+        assertThat(stored).extracting(Messages::getcontent).containsExactly("from journal", "first", "second");
+        assertThat(stored).extracting(Messages::getDateTime).containsOnly("01-01-2026");
+        assertThat(Files.size(journalDir.resolve("messages.journal"))).isZero();
+    }
+
+    @Test
+    @Order(2)
+    void deadLettersARowThatCannotBeStoredAndKeepsTheRest() throws Exception {
+        Messages before = message(2L, "before");
+        // longer than the content column
+        Messages oversized = message(2L, "x".repeat(1000));
+        Messages after = message(2L, "after");
+        messageWriter.submit(before);
+        messageWriter.submit(oversized);
+        messageWriter.submit(after);
+
+        List<Messages> stored = awaitStored(2L, 2);
+        assertThat(stored).extracting(Messages::getcontent).containsExactly("before", "after");
+        assertThat(Files.readString(journalDir.resolve("messages.dead-letter")))
+                .contains("\"messageID\":" + oversized.getMessageID());
+    }
+
+    private Messages message(String content) {
+        return message(1L, content);
+    }
+
+    private Messages message(Long conversationId, String content) {
+        return new Messages(null, content, "ann", "bob", "01-01-2026", conversationId, null, "10:01");
+    }
+
+    private List<Messages> awaitStored(int count) throws InterruptedException {
+        return awaitStored(1L, count);
+    }
+
+    private List<Messages> awaitStored(Long conversationId, int count) throws InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            List<Messages> stored = mrepo.getConvsByID(String.valueOf(conversationId));
+            if (stored.size() >= count && messageWriter.pendingFor(conversationId).isEmpty()) {
+                stored.sort((left, right) -> Long.compare(left.getMessageID(), right.getMessageID()));
+                return stored;
+            }
+            Thread.sleep(25);
+        }
+        throw new AssertionError("messages were not stored");
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.MeForLife.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageRenderQueueTests {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void hasPagesInOrder() throws Exception {
+        try (PageRenderQueue pages = new PageRenderQueue(pool, 3, 2,
+                page -> new BufferedImage(page + 1, 1, BufferedImage.TYPE_INT_ARGB))) {
+            for (int page = 0; page < pages.size(); page++) {
+                assertThat(pages.take(page).getWidth()).isEqualTo(page + 1);
+            }
+        }
+    }
+
+    @Test
+    void closeStopsRunningRendersBeforeReturning() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger rendering = new AtomicInteger();
+        PageRenderQueue pages = new PageRenderQueue(pool, 4, 2, page -> {
+            rendering.incrementAndGet();
+            started.countDown();
+            try {
+                // stands in for drawing bubbles until the export is abandoned
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.onSpinWait();
+                }
+                throw new CancellationException();
+            } finally {
+                rendering.decrementAndGet();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        pages.close();
+
+        assertThat(rendering.get()).isZero();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.MeForLife.services;
+
+import com.example.MeForLife.entity.Messages;
+import com.example.MeForLife.repo.MessagesRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SentAtBackfillTests {
+
+    private static final long CONVERSATION = 43L;
+
+    @Autowired
+    private SentAtBackfill sentAtBackfill;
+
+    @Autowired
+    private ChatExportService chatExportService;
+
+    @Autowired
+    private MessagesRepo mrepo;
+
+    @Test
+    void backfillsSentAtAndKeepsDayQueriesAnsweredMeanwhile() {
+        List<Long> ids = new ArrayList<>();
+        for (String[] at : new String[][] {{"03-01-2026", "23:59"}, {"03-01-2026", "08:15"}, {"04-01-2026", "00:00"}}) {
+            ids.add(mrepo.save(new Messages(null, "hi", "ann", "bob", at[0], CONVERSATION, null, at[1])).getMessageID());
+        }
+
+        assertThat(chatExportService.findMessagesOfDay(CONVERSATION, "03-01-2026"))
+                .extracting(Messages::getMessageID).containsExactly(ids.get(0), ids.get(1));
+
+        sentAtBackfill.backfillAll();
+
+        assertThat(sentAtBackfill.isComplete()).isTrue();
+        assertThat(mrepo.findById(ids.get(1)).orElseThrow().getSentAt())
+                .isEqualTo(LocalDateTime.of(2026, 1, 3, 8, 15).atZone(ZoneId.systemDefault()).toInstant());
+        assertThat(chatExportService.findMessagesOfDay(CONVERSATION, "03-01-2026"))
+                .extracting(Messages::getMessageID).containsExactly(ids.get(1), ids.get(0));
+        assertThat(chatExportService.findMessagesOfDay(CONVERSATION, "04-01-2026"))
+                .extracting(Messages::getMessageID).containsExactly(ids.get(2));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.chatapp.benchmarks;
+
+import com.example.chatapp.dto.MessageDto;
+import com.example.chatapp.dto.SocketEvent;
+import com.example.chatapp.dto.TypingDto;
+import com.example.chatapp.dto.UserDto;
+import com.example.chatapp.websocket.SocketFrameCodec;
+import com.example.chatapp.websocket.SocketFrameEncoding;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * Jackson serialization of the payloads pushed over the chat socket, using an {@link ObjectMapper}
+ * configured like the application's. The {@code frame*} benchmarks go through
+ * {@link SocketFrameCodec} and include building the websocket message.
+ *
+ * <p>Run with {@code -prof gc} to see allocation per serialized event.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventSerializationBenchmark {
+
+    /** Length of the message body in characters. */
+    @Param({"32", "1024"})
+    int contentLength;
+
+    private ObjectMapper objectMapper;
+    private SocketFrameCodec frameCodec;
+    private MessageDto message;
+    private SocketEvent<MessageDto> messageEvent;
+    private Map<String, Object> typingEnvelope;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        frameCodec = new SocketFrameCodec(objectMapper);
+
+        UserDto sender = new UserDto(1L, "alice", "alice@example.com");
+        message = new MessageDto(42L, 7L, sender.getId(), "x".repeat(contentLength), LocalDateTime.now());
+        messageEvent = new SocketEvent<>("message", message);
+        typingEnvelope = typingEnvelope(new TypingDto(7L, sender.getId(), true, sender));
+    }
+
+    @Benchmark
+    public byte[] messageDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public byte[] socketEvent() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(messageEvent);
+    }
+
+    @Benchmark
+    public byte[] typingEnvelope() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(typingEnvelope);
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> frameJson() throws IOException {
+        return frameCodec.encode(messageEvent).forEncoding(SocketFrameEncoding.JSON);
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> frameCbor() throws IOException {
+        return frameCodec.encode(messageEvent).forEncoding(SocketFrameEncoding.CBOR);
+    }
+
+    /** Same shape as the envelope built by {@code ChatSocketService.broadcastTyping}. */
+    private static Map<String, Object> typingEnvelope(TypingDto typing) {
+        Map<String, Object> envelope = new HashMap<>();
+        envelope.put("type", "typing");
+        envelope.put("conversationId", typing.getConversationId());
+        envelope.put("userId", typing.getUserId());
+        envelope.put("isTyping", typing.isTyping());
+        envelope.put("typing", typing.isTyping());
+        envelope.put("payload", typing);
+        envelope.put("user", typing.getUser());
+        envelope.put("displayName", typing.getUser().getUsername());
+        envelope.put("status", typing.isTyping() ? "typing" : "stopped");
+        return envelope;
+    }
+}
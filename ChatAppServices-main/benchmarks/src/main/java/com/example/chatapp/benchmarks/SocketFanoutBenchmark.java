@@ -0,0 +1,102 @@
+package com.example.chatapp.benchmarks;
+
+import com.example.chatapp.dto.MessageDto;
+import com.example.chatapp.dto.TypingDto;
+import com.example.chatapp.dto.UserDto;
+import com.example.chatapp.service.ChatSocketService;
+import com.example.chatapp.service.LongIdSet;
+import com.example.chatapp.websocket.OutboundSessionQueue.OverflowPolicy;
+import com.example.chatapp.websocket.SocketFrameCodec;
+import com.example.chatapp.websocket.SocketFrameEncoding;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost on the publishing thread of fanning one event out to every session of a conversation:
+ * encoding once per wire format and queueing the frame per session. Frames are drained by the
+ * service's writer pool into {@link StubWebSocketSession}s that discard them.
+ *
+ * <p>Run with {@code -prof gc} to see allocation per fanout.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SocketFanoutBenchmark {
+
+    /** Users taking part in the conversation, i.e. the recipient set of every event. */
+    @Param({"2", "50", "500"})
+    int recipients;
+
+    /** Open sessions (devices, tabs) per recipient. */
+    @Param({"1", "4"})
+    int sessionsPerUser;
+
+    /** Wire encoding negotiated by the sessions. */
+    @Param({"JSON", "CBOR"})
+    SocketFrameEncoding encoding;
+
+    private ChatSocketService socketService;
+    private final List<StubWebSocketSession> sessions = new ArrayList<>();
+    private LongIdSet participantIds;
+    private MessageDto message;
+    private TypingDto typing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        socketService = new ChatSocketService(
+                new SocketFrameCodec(Jackson2ObjectMapperBuilder.json().build()),
+                new SimpleMeterRegistry(),
+                4, 10_000, 16 * 1024 * 1024, 100_000, 32, OverflowPolicy.DROP_OLDEST);
+
+        List<Long> userIds = new ArrayList<>(recipients);
+        for (long userId = 1; userId <= recipients; userId++) {
+            userIds.add(userId);
+            for (int i = 0; i < sessionsPerUser; i++) {
+                StubWebSocketSession session = new StubWebSocketSession(userId + "-" + i);
+                sessions.add(session);
+                socketService.registerSession(userId, session, encoding);
+            }
+        }
+        participantIds = LongIdSet.of(userIds);
+
+        UserDto sender = new UserDto(1L, "alice", "alice@example.com");
+        message = new MessageDto(42L, 7L, sender.getId(),
+                "Running a few minutes late, start without me", LocalDateTime.now());
+        typing = new TypingDto(7L, sender.getId(), true, sender);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        socketService.shutdown();
+    }
+
+    @Benchmark
+    public void broadcastMessage() {
+        socketService.broadcastMessage(message, participantIds);
+    }
+
+    @Benchmark
+    public void broadcastTyping() {
+        socketService.broadcastTyping(typing, participantIds, typing.getUserId());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.chatapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Minimal client of the chatapp REST API, covering what the load generator needs.
+ */
+final class ChatApiClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+
+    ChatApiClient(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+    }
+
+    boolean isUp() {
+        try {
+            HttpResponse<String> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health"))
+                            .timeout(Duration.ofSeconds(2))
+                            .GET()
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    long registerUser(String username, String email) throws IOException, InterruptedException {
+        return post("/api/chat/register", Map.of("username", username, "email", email)).path("id").asLong();
+    }
+
+    long createConversation(long initiatorId, long targetUserId) throws IOException, InterruptedException {
+        return post("/api/chat/conversations", Map.of("initiatorId", initiatorId, "targetUserId", targetUserId))
+                .path("id").asLong();
+    }
+
+    CompletableFuture<HttpResponse<Void>> sendMessage(long conversationId, long senderId, String content) {
+        return postAsync("/api/chat/conversations/" + conversationId + "/messages",
+                Map.of("senderId", senderId, "content", content));
+    }
+
+    CompletableFuture<HttpResponse<Void>> markRead(long conversationId, long userId) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("userId", userId);
+        return postAsync("/api/chat/conversations/" + conversationId + "/read", body);
+    }
+
+    private JsonNode post(String path, Object body) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request(path, body), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IOException("POST " + path + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private CompletableFuture<HttpResponse<Void>> postAsync(String path, Object body) {
+        try {
+            return httpClient.sendAsync(request(path, body), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private HttpRequest request(String path, Object body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.chatapp.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The chatapp server under test, started from its executable jar in a separate JVM so that it
+ * does not share heap, GC or CPU scheduling with the load generator.
+ */
+final class ChatAppProcess {
+
+    private final Process process;
+    private final Path log;
+
+    private ChatAppProcess(Process process, Path log) {
+        this.process = process;
+        this.log = log;
+    }
+
+    static ChatAppProcess start(LoadTestOptions options) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-jar");
+        command.add(options.appJar.toAbsolutePath().toString());
+        command.add("--server.port=" + options.port());
+        command.add("--spring.datasource.url=" + options.dbUrl);
+        command.add("--spring.datasource.username=" + options.dbUser);
+        command.add("--spring.datasource.password=" + options.dbPassword);
+        command.add("--spring.jpa.show-sql=false");
+
+        Path log = Path.of("chatapp-load.log").toAbsolutePath();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .directory(new File("."))
+                .start();
+        System.out.printf("Started chatapp (pid %d) on port %d, logging to %s%n", process.pid(), options.port(), log);
+        return new ChatAppProcess(process, log);
+    }
+
+    void awaitUp(ChatApiClient api, long timeoutSeconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (!api.isUp()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("chatapp exited with " + process.exitValue() + ", see " + log);
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("chatapp did not become healthy within " + timeoutSeconds
+                        + " s, see " + log);
+            }
+            Thread.sleep(500);
+        }
+    }
+
+    void stop() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.chatapp.loadtest;
+
+import com.example.chatapp.loadtest.Scenario.Operation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load generator for chatapp.
+ *
+ * <p>Registers users, pairs them into conversations and keeps one {@code /ws/chat} connection open
+ * per user. Each scenario then offers a fixed operation rate (open loop, so a slow server does not
+ * slow down the offered load) mixing REST {@code sendMessage}, typing frames and
+ * {@code markConversationAsRead}. Latencies are measured from the time an operation was scheduled,
+ * which avoids coordinated omission; send-to-receive is the time until the other participant's
+ * socket received the message.</p>
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.example.chatapp.loadtest.LoadGenerator \
+ *     --app-jar=target/chatapp-0.0.1-SNAPSHOT.jar --db-password=secret \
+ *     --users=2000 --rate=500 --duration=60 --report-dir=load-report
+ * </pre>
+ */
+public final class LoadGenerator implements SocketClient.EventHandler {
+
+    private record ConversationPair(long id, long firstUserId, long secondUserId) {
+    }
+
+    private record PendingDelivery(long scheduledAtNanos, long recipientId, ScenarioStats stats) {
+    }
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+    private static final int SETUP_PARALLELISM = 32;
+    private static final int CONNECT_BATCH = 50;
+    private static final int CONNECT_ATTEMPTS = 5;
+
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final ChatApiClient api;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final String padding;
+    private final AtomicLong messageSequence = new AtomicLong();
+    private final Map<String, PendingDelivery> pendingDeliveries = new ConcurrentHashMap<>();
+    private final Map<Long, SocketClient> sockets = new ConcurrentHashMap<>();
+    private final List<ConversationPair> conversations = new ArrayList<>();
+    private volatile ScenarioStats currentStats;
+
+    private LoadGenerator(LoadTestOptions options) {
+        this.options = options;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.api = new ChatApiClient(httpClient, objectMapper, options.baseUrl);
+        this.padding = "x".repeat(Math.max(0, options.messageSize - 24));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ChatAppProcess app = options.appJar != null ? ChatAppProcess.start(options) : null;
+        LoadGenerator generator = new LoadGenerator(options);
+        try {
+            if (app != null) {
+                app.awaitUp(generator.api, 180);
+            }
+            generator.run();
+        } finally {
+            generator.closeSockets();
+            if (app != null) {
+                app.stop();
+            }
+        }
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        setUp();
+        List<ScenarioStats> results = new ArrayList<>();
+        for (Scenario scenario : options.scenarios) {
+            System.out.printf("Running %s: %d ops/s for %d s after %d s warmup%n", scenario.displayName(),
+                    options.rate, options.duration.toSeconds(), options.warmup.toSeconds());
+            results.add(runScenario(scenario));
+        }
+        System.out.printf("%nchatapp load report: %d users, %d conversations, %d sockets, offered %d ops/s%n",
+                options.users, conversations.size(), sockets.size(), options.rate);
+        for (ScenarioStats stats : results) {
+            stats.print(System.out);
+            if (options.reportDir != null) {
+                stats.writeDistributions(options.reportDir);
+            }
+        }
+    }
+
+    private void setUp() throws Exception {
+        ExecutorService setup = Executors.newFixedThreadPool(SETUP_PARALLELISM);
+        try {
+            List<CompletableFuture<Long>> registrations = new ArrayList<>();
+            for (int i = 0; i < options.users; i++) {
+                String username = "load-" + runId + "-" + i;
+                registrations.add(CompletableFuture.supplyAsync(
+                        () -> unchecked(() -> api.registerUser(username, username + "@load.test")), setup));
+            }
+            List<Long> userIds = registrations.stream().map(CompletableFuture::join).toList();
+            System.out.printf("Registered %d users%n", userIds.size());
+
+            Set<String> pairs = new HashSet<>();
+            List<CompletableFuture<ConversationPair>> creations = new ArrayList<>();
+            for (int i = 0; i < userIds.size(); i++) {
+                for (int k = 1; k <= options.conversationsPerUser; k++) {
+                    long first = userIds.get(i);
+                    long second = userIds.get((i + k) % userIds.size());
+                    if (first == second || !pairs.add(Math.min(first, second) + ":" + Math.max(first, second))) {
+                        continue;
+                    }
+                    creations.add(CompletableFuture.supplyAsync(() -> new ConversationPair(
+                            unchecked(() -> api.createConversation(first, second)), first, second), setup));
+                }
+            }
+            creations.forEach(creation -> conversations.add(creation.join()));
+            System.out.printf("Created %d conversations%n", conversations.size());
+        } finally {
+            setup.shutdown();
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        conversations.forEach(pair -> {
+            userIds.add(pair.firstUserId());
+            userIds.add(pair.secondUserId());
+        });
+        List<Long> pendingConnects = new ArrayList<>(userIds);
+        for (int from = 0; from < pendingConnects.size(); from += CONNECT_BATCH) {
+            List<CompletableFuture<SocketClient>> batch = pendingConnects
+                    .subList(from, Math.min(pendingConnects.size(), from + CONNECT_BATCH)).stream()
+                    .map(userId -> connect(userId, CONNECT_ATTEMPTS))
+                    .toList();
+            batch.forEach(connect -> {
+                SocketClient client = connect.join();
+                sockets.put(client.getUserId(), client);
+            });
+        }
+        System.out.printf("Opened %d websocket connections%n", sockets.size());
+    }
+
+    /**
+     * Tomcat answers some handshakes with {@code Connection: upgrade, close} while its request
+     * threads are busy, which the JDK client rejects, so handshakes are retried.
+     */
+    private CompletableFuture<SocketClient> connect(long userId, int attempts) {
+        return SocketClient.connect(httpClient, options.baseUrl, userId, objectMapper, this)
+                .exceptionallyCompose(error -> attempts > 1
+                        ? connect(userId, attempts - 1)
+                        : CompletableFuture.failedFuture(error));
+    }
+
+    private ScenarioStats runScenario(Scenario scenario) throws InterruptedException {
+        ScenarioStats stats = new ScenarioStats(scenario);
+        currentStats = stats;
+        pendingDeliveries.clear();
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+        double intervalNanos = 1e9 / options.rate;
+        stats.startMeasuring(measureFrom);
+
+        long issued = 0;
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            long due = (long) ((now - start) / intervalNanos);
+            while (issued < due) {
+                long scheduledAt = start + (long) (issued * intervalNanos);
+                issue(scenario.next(), scheduledAt, stats);
+                issued++;
+            }
+            LockSupport.parkNanos(100_000);
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (!pendingDeliveries.isEmpty() && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        long lost = pendingDeliveries.values().stream()
+                .filter(pending -> stats.isMeasured(pending.scheduledAtNanos()))
+                .count();
+        stats.finish(end, lost);
+        return stats;
+    }
+
+    private void issue(Operation operation, long scheduledAt, ScenarioStats stats) {
+        ConversationPair conversation = conversations.get(ThreadLocalRandom.current().nextInt(conversations.size()));
+        boolean firstActs = ThreadLocalRandom.current().nextBoolean();
+        long actorId = firstActs ? conversation.firstUserId() : conversation.secondUserId();
+        long otherId = firstActs ? conversation.secondUserId() : conversation.firstUserId();
+        stats.operationIssued(scheduledAt);
+
+        switch (operation) {
+            case SEND_MESSAGE -> {
+                String token = "lt-" + runId + "-" + messageSequence.incrementAndGet();
+                pendingDeliveries.put(token, new PendingDelivery(scheduledAt, otherId, stats));
+                api.sendMessage(conversation.id(), actorId, token + " " + padding)
+                        .whenComplete((response, error) -> {
+                            if (failed(response, error)) {
+                                pendingDeliveries.remove(token);
+                                stats.error(scheduledAt);
+                            } else {
+                                stats.record(ScenarioStats.SEND_REST, scheduledAt, System.nanoTime());
+                            }
+                        });
+            }
+            case TYPING -> {
+                SocketClient socket = sockets.get(actorId);
+                if (socket != null) {
+                    socket.sendTyping(conversation.id(), true).whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            stats.error(scheduledAt);
+                        }
+                    });
+                }
+            }
+            case MARK_READ -> api.markRead(conversation.id(), actorId)
+                    .whenComplete((response, error) -> {
+                        if (failed(response, error)) {
+                            stats.error(scheduledAt);
+                        } else {
+                            stats.record(ScenarioStats.READ_REST, scheduledAt, System.nanoTime());
+                        }
+                    });
+        }
+    }
+
+    @Override
+    public void onMessage(long recipientId, JsonNode message, long receivedAtNanos) {
+        String content = message.path("content").asText("");
+        if (!content.startsWith("lt-")) {
+            return;
+        }
+        int separator = content.indexOf(' ');
+        String token = separator > 0 ? content.substring(0, separator) : content;
+        PendingDelivery pending = pendingDeliveries.get(token);
+        if (pending != null && pending.recipientId() == recipientId && pendingDeliveries.remove(token, pending)) {
+            pending.stats().record(ScenarioStats.DELIVERY, pending.scheduledAtNanos(), receivedAtNanos);
+        }
+    }
+
+    @Override
+    public void onTyping(long recipientId) {
+        ScenarioStats stats = currentStats;
+        if (stats != null) {
+            stats.typingReceived();
+        }
+    }
+
+    private void closeSockets() {
+        sockets.values().forEach(SocketClient::close);
+    }
+
+    private static boolean failed(HttpResponse<?> response, Throwable error) {
+        return error != null || response.statusCode() >= 300;
+    }
+
+    private interface IoCall<T> {
+        T call() throws Exception;
+    }
+
+    private static <T> T unchecked(IoCall<T> call) {
+        try {
+            return call.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.chatapp.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options of {@link LoadGenerator}, given as {@code --name=value}.
+ */
+final class LoadTestOptions {
+
+    final String baseUrl;
+    final Path appJar;
+    final String dbUrl;
+    final String dbUser;
+    final String dbPassword;
+    final int users;
+    final int conversationsPerUser;
+    final int rate;
+    final Duration warmup;
+    final Duration duration;
+    final int messageSize;
+    final List<Scenario> scenarios;
+    final Path reportDir;
+
+    private LoadTestOptions(Map<String, String> values) {
+        int port = Integer.parseInt(values.getOrDefault("port", "18080"));
+        this.baseUrl = values.getOrDefault("base-url", "http://localhost:" + port);
+        this.appJar = values.containsKey("app-jar") ? Path.of(values.get("app-jar")) : null;
+        this.dbUrl = values.getOrDefault("db-url",
+                "jdbc:mysql://localhost:3306/chat_app_load?createDatabaseIfNotExist=true");
+        this.dbUser = values.getOrDefault("db-user", "root");
+        this.dbPassword = values.getOrDefault("db-password", "");
+        this.users = Integer.parseInt(values.getOrDefault("users", "2000"));
+        this.conversationsPerUser = Integer.parseInt(values.getOrDefault("conversations-per-user", "2"));
+        this.rate = Integer.parseInt(values.getOrDefault("rate", "500"));
+        this.warmup = Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "15")));
+        this.duration = Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60")));
+        this.messageSize = Integer.parseInt(values.getOrDefault("message-size", "80"));
+        this.scenarios = Arrays.stream(values.getOrDefault("scenarios", "chat,typing-heavy,read-heavy").split(","))
+                .map(String::trim)
+                .map(Scenario::byName)
+                .toList();
+        this.reportDir = values.containsKey("report-dir") ? Path.of(values.get("report-dir")) : null;
+        if (users < 2) {
+            throw new IllegalArgumentException("At least two users are required");
+        }
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String[] parts = arg.substring(2).split("=", 2);
+            values.put(parts[0], parts[1]);
+        }
+        return new LoadTestOptions(values);
+    }
+
+    int port() {
+        return URI.create(baseUrl).getPort();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.chatapp.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A named mix of client operations. Weights are relative shares of the offered rate.
+ */
+enum Scenario {
+
+    CHAT("chat", 70, 20, 10),
+    TYPING_HEAVY("typing-heavy", 20, 70, 10),
+    READ_HEAVY("read-heavy", 30, 10, 60),
+    SEND_ONLY("send-only", 100, 0, 0);
+
+    enum Operation {
+        SEND_MESSAGE, TYPING, MARK_READ
+    }
+
+    private final String name;
+    private final int sendWeight;
+    private final int typingWeight;
+    private final int readWeight;
+
+    Scenario(String name, int sendWeight, int typingWeight, int readWeight) {
+        this.name = name;
+        this.sendWeight = sendWeight;
+        this.typingWeight = typingWeight;
+        this.readWeight = readWeight;
+    }
+
+    String displayName() {
+        return name;
+    }
+
+    Operation next() {
+        int roll = ThreadLocalRandom.current().nextInt(sendWeight + typingWeight + readWeight);
+        if (roll < sendWeight) {
+            return Operation.SEND_MESSAGE;
+        }
+        return roll < sendWeight + typingWeight ? Operation.TYPING : Operation.MARK_READ;
+    }
+
+    static Scenario byName(String name) {
+        return Arrays.stream(values())
+                .filter(scenario -> scenario.name.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown scenario " + name
+                        + ", expected one of " + Arrays.toString(Arrays.stream(values()).map(s -> s.name).toArray())));
+    }
+}
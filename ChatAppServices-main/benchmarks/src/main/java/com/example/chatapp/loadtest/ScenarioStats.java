@@ -0,0 +1,114 @@
+package com.example.chatapp.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histograms and counters of one scenario run. Samples whose operation was scheduled
+ * before the end of the warmup are ignored.
+ */
+final class ScenarioStats {
+
+    static final String DELIVERY = "send-to-receive";
+    static final String SEND_REST = "sendMessage";
+    static final String READ_REST = "markConversationAsRead";
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Scenario scenario;
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder typingReceived = new LongAdder();
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+    private long measuredNanos;
+    private long lostMessages;
+
+    ScenarioStats(Scenario scenario) {
+        this.scenario = scenario;
+        for (String metric : new String[] {DELIVERY, SEND_REST, READ_REST}) {
+            histograms.put(metric, new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3));
+        }
+    }
+
+    void startMeasuring(long nanos) {
+        measureFromNanos = nanos;
+    }
+
+    boolean isMeasured(long scheduledAtNanos) {
+        return scheduledAtNanos >= measureFromNanos;
+    }
+
+    void finish(long endNanos, long lostMessages) {
+        this.measuredNanos = endNanos - measureFromNanos;
+        this.lostMessages = lostMessages;
+    }
+
+    void record(String metric, long scheduledAtNanos, long completedAtNanos) {
+        if (isMeasured(scheduledAtNanos)) {
+            histograms.get(metric).recordValue(
+                    Math.min(HIGHEST_TRACKABLE_NANOS, Math.max(0L, completedAtNanos - scheduledAtNanos)));
+        }
+    }
+
+    void operationIssued(long scheduledAtNanos) {
+        if (isMeasured(scheduledAtNanos)) {
+            operations.increment();
+        }
+    }
+
+    void error(long scheduledAtNanos) {
+        if (isMeasured(scheduledAtNanos)) {
+            errors.increment();
+        }
+    }
+
+    void typingReceived() {
+        if (System.nanoTime() >= measureFromNanos) {
+            typingReceived.increment();
+        }
+    }
+
+    void print(PrintStream out) {
+        double seconds = measuredNanos / 1e9;
+        out.printf("%n== %s ==%n", scenario.displayName());
+        out.printf("operations %d (%.1f/s), errors %d, lost messages %d, typing frames received %d%n",
+                operations.sum(), operations.sum() / seconds, errors.sum(), lostMessages, typingReceived.sum());
+        out.printf("%-24s %10s %10s %10s %10s %10s %10s%n", "latency (ms)", "count", "per sec", "p50", "p99",
+                "p999", "max");
+        histograms.forEach((metric, histogram) -> out.printf("%-24s %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                metric,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue())));
+    }
+
+    /**
+     * Writes one HdrHistogram percentile distribution ({@code .hgrm}, in milliseconds) per metric,
+     * which can be plotted or compared between runs.
+     */
+    void writeDistributions(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Path file = directory.resolve(scenario.displayName() + "-" + entry.getKey() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                entry.getValue().outputPercentileDistribution(out, 1_000_000.0);
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
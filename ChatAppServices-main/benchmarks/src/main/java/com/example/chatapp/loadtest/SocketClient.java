@@ -0,0 +1,104 @@
+package com.example.chatapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * One {@code /ws/chat} connection of a simulated user. Incoming frames are decoded and handed to
+ * an {@link EventHandler}; outgoing frames are serialized because {@link WebSocket} allows only
+ * one outstanding send.
+ */
+final class SocketClient implements WebSocket.Listener {
+
+    interface EventHandler {
+
+        void onMessage(long recipientId, JsonNode message, long receivedAtNanos);
+
+        void onTyping(long recipientId);
+    }
+
+    private final long userId;
+    private final ObjectMapper objectMapper;
+    private final EventHandler handler;
+    private final StringBuilder partial = new StringBuilder();
+    private WebSocket webSocket;
+    private CompletableFuture<?> lastSend = CompletableFuture.completedFuture(null);
+
+    private SocketClient(long userId, ObjectMapper objectMapper, EventHandler handler) {
+        this.userId = userId;
+        this.objectMapper = objectMapper;
+        this.handler = handler;
+    }
+
+    static CompletableFuture<SocketClient> connect(HttpClient httpClient, String baseUrl, long userId,
+                                                   ObjectMapper objectMapper, EventHandler handler) {
+        SocketClient client = new SocketClient(userId, objectMapper, handler);
+        URI uri = URI.create(baseUrl.replaceFirst("^http", "ws") + "/ws/chat?userId=" + userId);
+        return httpClient.newWebSocketBuilder()
+                .buildAsync(uri, client)
+                .thenApply(webSocket -> {
+                    client.webSocket = webSocket;
+                    return client;
+                });
+    }
+
+    long getUserId() {
+        return userId;
+    }
+
+    synchronized CompletableFuture<?> sendTyping(long conversationId, boolean isTyping) {
+        String frame;
+        try {
+            frame = objectMapper.writeValueAsString(Map.of(
+                    "type", "typing",
+                    "conversationId", conversationId,
+                    "userId", userId,
+                    "isTyping", isTyping));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        lastSend = lastSend.handle((ignored, error) -> null)
+                .thenCompose(ignored -> webSocket.sendText(frame, true));
+        return lastSend;
+    }
+
+    void close() {
+        if (webSocket != null) {
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+        }
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        long receivedAt = System.nanoTime();
+        partial.append(data);
+        if (last) {
+            String text = partial.toString();
+            partial.setLength(0);
+            dispatch(text, receivedAt);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    private void dispatch(String text, long receivedAt) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(text);
+        } catch (Exception e) {
+            return;
+        }
+        String type = root.path("type").asText("");
+        if ("message".equals(type)) {
+            handler.onMessage(userId, root.path("payload"), receivedAt);
+        } else if ("typing".equals(type)) {
+            handler.onTyping(userId);
+        }
+    }
+}
@@ -4,8 +4,11 @@ import com.example.chatapp.dto.ConversationDto;
 import com.example.chatapp.dto.CreateConversationRequest;
 import com.example.chatapp.dto.LoginRequest;
 import com.example.chatapp.dto.MessageDto;
+import com.example.chatapp.dto.MessagePageDto;
 import com.example.chatapp.dto.SendMessageRequest;
 import com.example.chatapp.dto.MarkConversationReadRequest;
+import com.example.chatapp.dto.SyncDto;
+import com.example.chatapp.dto.SyncRequest;
 import com.example.chatapp.entity.User;
 import com.example.chatapp.service.ChatService;
 import jakarta.validation.Valid;
@@ -16,6 +19,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -43,6 +47,12 @@ public class ChatController {
         return ResponseEntity.ok(chatService.getConversations(userId));
     }
 
+    @PostMapping("/users/{userId}/sync")
+    public ResponseEntity<SyncDto> sync(@PathVariable Long userId,
+                                        @RequestBody(required = false) SyncRequest request) {
+        return ResponseEntity.ok(chatService.sync(userId, request));
+    }
+
     @PostMapping("/conversations")
     public ResponseEntity<ConversationDto> startConversation(
             @Valid @RequestBody CreateConversationRequest request) {
@@ -54,6 +64,14 @@ public class ChatController {
         return ResponseEntity.ok(chatService.getMessages(conversationId));
     }
 
+    @GetMapping("/conversations/{conversationId}/messages/page")
+    public ResponseEntity<MessagePageDto> getMessagePage(@PathVariable Long conversationId,
+                                                         @RequestParam(required = false) String before,
+                                                         @RequestParam(required = false) String after,
+                                                         @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(chatService.getMessagePage(conversationId, before, after, limit));
+    }
+
     @PostMapping("/conversations/{conversationId}/messages")
     public ResponseEntity<MessageDto> sendMessage(@PathVariable Long conversationId,
                                                   @Valid @RequestBody SendMessageRequest request) {
@@ -0,0 +1,41 @@
+package com.example.chatapp.dto;
+
+import java.util.List;
+
+public class MessagePageDto {
+    private List<MessageDto> messages;
+    private String prevCursor;
+    private String nextCursor;
+
+    public MessagePageDto() {}
+
+    public MessagePageDto(List<MessageDto> messages, String prevCursor, String nextCursor) {
+        this.messages = messages;
+        this.prevCursor = prevCursor;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<MessageDto> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<MessageDto> messages) {
+        this.messages = messages;
+    }
+
+    public String getPrevCursor() {
+        return prevCursor;
+    }
+
+    public void setPrevCursor(String prevCursor) {
+        this.prevCursor = prevCursor;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.chatapp.dto;
+
+import java.time.LocalDateTime;
+
+public class ReadStateDto {
+    private Long conversationId;
+    private Long userId;
+    private Long lastReadMessageId;
+    private LocalDateTime lastReadAt;
+
+    public ReadStateDto() {}
+
+    public ReadStateDto(Long conversationId, Long userId, Long lastReadMessageId, LocalDateTime lastReadAt) {
+        this.conversationId = conversationId;
+        this.userId = userId;
+        this.lastReadMessageId = lastReadMessageId;
+        this.lastReadAt = lastReadAt;
+    }
+
+    public Long getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(Long conversationId) {
+        this.conversationId = conversationId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getLastReadMessageId() {
+        return lastReadMessageId;
+    }
+
+    public void setLastReadMessageId(Long lastReadMessageId) {
+        this.lastReadMessageId = lastReadMessageId;
+    }
+
+    public LocalDateTime getLastReadAt() {
+        return lastReadAt;
+    }
+
+    public void setLastReadAt(LocalDateTime lastReadAt) {
+        this.lastReadAt = lastReadAt;
+    }
+}
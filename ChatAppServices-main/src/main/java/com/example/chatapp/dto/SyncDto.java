@@ -0,0 +1,62 @@
+package com.example.chatapp.dto;
+
+import java.util.List;
+
+public class SyncDto {
+    private String token;
+    private boolean hasMore;
+    private List<ConversationDto> conversations;
+    private List<MessageDto> messages;
+    private List<ReadStateDto> readStates;
+
+    public SyncDto() {}
+
+    public SyncDto(String token, boolean hasMore, List<ConversationDto> conversations,
+                   List<MessageDto> messages, List<ReadStateDto> readStates) {
+        this.token = token;
+        this.hasMore = hasMore;
+        this.conversations = conversations;
+        this.messages = messages;
+        this.readStates = readStates;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public List<ConversationDto> getConversations() {
+        return conversations;
+    }
+
+    public void setConversations(List<ConversationDto> conversations) {
+        this.conversations = conversations;
+    }
+
+    public List<MessageDto> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<MessageDto> messages) {
+        this.messages = messages;
+    }
+
+    public List<ReadStateDto> getReadStates() {
+        return readStates;
+    }
+
+    public void setReadStates(List<ReadStateDto> readStates) {
+        this.readStates = readStates;
+    }
+}
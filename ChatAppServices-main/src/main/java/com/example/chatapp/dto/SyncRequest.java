@@ -0,0 +1,36 @@
+package com.example.chatapp.dto;
+
+import java.util.Map;
+
+public class SyncRequest {
+
+    private String token;
+
+    private Map<Long, Long> conversations;
+
+    private Integer limit;
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public Map<Long, Long> getConversations() {
+        return conversations;
+    }
+
+    public void setConversations(Map<Long, Long> conversations) {
+        this.conversations = conversations;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.chatapp.entity;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -29,6 +30,13 @@ public class Conversation {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    /**
+     * Sequence number of the latest message. {@code null} until the conversation has been
+     * migrated by {@link com.example.chatapp.service.MessageSequenceBackfill}.
+     */
+    @Column(name = "last_sequence")
+    private Long lastSequence;
+
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
             name = "conversation_participants",
@@ -66,6 +74,19 @@ public class Conversation {
         this.updatedAt = updatedAt;
     }
 
+    public Long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(Long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+
+    public long nextSequence() {
+        lastSequence = (lastSequence != null ? lastSequence : 0L) + 1;
+        return lastSequence;
+    }
+
     public Set<User> getParticipants() {
         return participants;
     }
@@ -85,6 +106,9 @@ public class Conversation {
         LocalDateTime now = LocalDateTime.now();
         this.createdAt = now;
         this.updatedAt = now;
+        if (this.lastSequence == null) {
+            this.lastSequence = 0L;
+        }
     }
 
     @PreUpdate
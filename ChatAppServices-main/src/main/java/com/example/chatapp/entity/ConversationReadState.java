@@ -32,6 +32,8 @@ public class ConversationReadState {
 
     private Long lastReadMessageId;
 
+    private Long lastReadSequence;
+
     private LocalDateTime lastReadAt;
 
     public ConversationReadState() {}
@@ -68,6 +70,14 @@ public class ConversationReadState {
         this.lastReadMessageId = lastReadMessageId;
     }
 
+    public Long getLastReadSequence() {
+        return lastReadSequence;
+    }
+
+    public void setLastReadSequence(Long lastReadSequence) {
+        this.lastReadSequence = lastReadSequence;
+    }
+
     public LocalDateTime getLastReadAt() {
         return lastReadAt;
     }
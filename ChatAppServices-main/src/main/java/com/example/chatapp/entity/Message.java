@@ -6,6 +6,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
@@ -14,7 +15,11 @@ import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_conversation_id_id", columnList = "conversation_id, id"),
+        // sync re-reads the last few seconds below its watermark, see ChatService#sync
+        @Index(name = "idx_messages_conversation_id_created_at", columnList = "conversation_id, created_at")
+})
 public class Message {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -33,6 +38,9 @@ public class Message {
     private String content;
     private LocalDateTime createdAt;
 
+    @Column(name = "sequence_number")
+    private Long sequence;
+
     public Message() {}
 
     public Long getId() {
@@ -75,6 +83,14 @@ public class Message {
         this.createdAt = createdAt;
     }
 
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
     @PrePersist
     public void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -0,0 +1,10 @@
+package com.example.chatapp.event;
+
+import com.example.chatapp.dto.ConversationDto;
+
+/**
+ * Published when a conversation has been created or joined; delivered to sockets once the
+ * transaction commits.
+ */
+public record ConversationChangedEvent(ConversationDto conversation) {
+}
@@ -0,0 +1,10 @@
+package com.example.chatapp.event;
+
+import com.example.chatapp.dto.MessageDto;
+import com.example.chatapp.service.LongIdSet;
+
+/**
+ * Published when a message has been stored; delivered to sockets once the transaction commits.
+ */
+public record MessageSentEvent(MessageDto message, LongIdSet recipientIds) {
+}
@@ -0,0 +1,57 @@
+package com.example.chatapp.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Counts Spring Data repository invocations made while handling one HTTP request and records the
+ * total as {@code chat.http.repository.calls}, tagged with the matched URI pattern. Invocations
+ * outside a request (socket handlers, background jobs) are not counted.
+ */
+@Component
+public class RepositoryCallCounter implements RepositoryMethodInvocationListener, HandlerInterceptor {
+
+    private static final ThreadLocal<int[]> CALLS = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public RepositoryCallCounter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        int[] calls = CALLS.get();
+        if (calls != null) {
+            calls[0]++;
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        CALLS.set(new int[1]);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        int[] calls = CALLS.get();
+        CALLS.remove();
+        if (calls == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("chat.http.repository.calls")
+                .description("Repository invocations per HTTP request")
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .register(meterRegistry)
+                .record(calls[0]);
+    }
+}
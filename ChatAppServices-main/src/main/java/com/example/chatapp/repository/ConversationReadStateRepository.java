@@ -1,10 +1,31 @@
 package com.example.chatapp.repository;
 
 import com.example.chatapp.entity.ConversationReadState;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ConversationReadStateRepository extends JpaRepository<ConversationReadState, Long> {
 
     Optional<ConversationReadState> findByConversation_IdAndUser_Id(Long conversationId, Long userId);
+
+    List<ConversationReadState> findByUser_IdAndConversation_IdIn(Long userId, Collection<Long> conversationIds);
+
+    List<ConversationReadState> findByConversation_IdIn(Collection<Long> conversationIds);
+
+    List<ConversationReadState> findByConversation_IdInAndLastReadAtGreaterThanEqual(
+            Collection<Long> conversationIds, LocalDateTime since);
+
+    @Modifying
+    @Query("""
+            update ConversationReadState s
+            set s.lastReadSequence = (select m.sequence from Message m where m.id = s.lastReadMessageId)
+            where s.conversation.id = :conversationId
+            """)
+    int backfillLastReadSequence(@Param("conversationId") Long conversationId);
 }
@@ -1,10 +1,13 @@
 package com.example.chatapp.repository;
 
 import com.example.chatapp.entity.Conversation;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -13,6 +16,38 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     @Query("select distinct c from Conversation c join c.participants p where p.id = :userId order by c.updatedAt desc")
     List<Conversation> findAllForUser(@Param("userId") Long userId);
 
+    /**
+     * Loads every conversation the user takes part in together with all of its participants
+     * in a single statement, so building the inbox never lazy-loads participants per row.
+     */
+    @Query("""
+            select distinct c from Conversation c
+            left join fetch c.participants
+            where c.id in (
+                select c2.id from Conversation c2 join c2.participants p where p.id = :userId)
+            order by c.updatedAt desc
+            """)
+    List<Conversation> findInboxForUser(@Param("userId") Long userId);
+
+    @Query("select p.id from Conversation c join c.participants p where c.id = :conversationId")
+    List<Long> findParticipantIds(@Param("conversationId") Long conversationId);
+
+    @Query("select c.id from Conversation c join c.participants p where p.id = :userId")
+    List<Long> findIdsForUser(@Param("userId") Long userId);
+
+    @Query("select c.id from Conversation c join c.participants p where p.id = :userId and c.createdAt >= :since")
+    List<Long> findIdsForUserCreatedSince(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+
+    @Query("select distinct c from Conversation c left join fetch c.participants where c.id in :ids order by c.updatedAt desc")
+    List<Conversation> findWithParticipantsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Conversation c where c.id = :id")
+    Optional<Conversation> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("select c.id from Conversation c where c.lastSequence is null order by c.id")
+    List<Long> findIdsWithoutSequence();
+
     @Query("""
             select distinct c from Conversation c
             join c.participants p1
@@ -1,9 +1,15 @@
 package com.example.chatapp.repository;
 
 import com.example.chatapp.entity.Message;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
@@ -11,7 +17,65 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
 
     Optional<Message> findTopByConversation_IdOrderByCreatedAtDesc(Long conversationId);
 
+    List<Message> findByConversation_IdOrderByIdDesc(Long conversationId, Limit limit);
+
+    List<Message> findByConversation_IdAndIdLessThanOrderByIdDesc(Long conversationId, Long messageId, Limit limit);
+
+    List<Message> findByConversation_IdAndIdGreaterThanOrderByIdAsc(Long conversationId, Long messageId, Limit limit);
+
+    List<Message> findByConversation_IdInAndIdGreaterThanOrderByIdAsc(
+            Collection<Long> conversationIds, Long messageId, Limit limit);
+
+    List<Message> findByConversation_IdInAndIdLessThanEqualAndCreatedAtGreaterThanEqualOrderByIdAsc(
+            Collection<Long> conversationIds, Long messageId, LocalDateTime createdAt, Limit limit);
+
     long countByConversation_Id(Long conversationId);
 
     long countByConversation_IdAndIdGreaterThan(Long conversationId, Long messageId);
+
+    /**
+     * Returns the most recent message of each given conversation in one statement.
+     */
+    @Query("""
+            select m from Message m
+            where m.id in (
+                select max(m2.id) from Message m2
+                where m2.conversation.id in :conversationIds
+                group by m2.conversation.id)
+            """)
+    List<Message> findLatestByConversationIds(@Param("conversationIds") Collection<Long> conversationIds);
+
+    /**
+     * Counts, per conversation, the messages newer than the user's last read message.
+     * Conversations without any unread message are omitted from the result. Only needed for
+     * conversations whose messages have no sequence numbers yet.
+     */
+    @Query("""
+            select m.conversation.id as conversationId, count(m) as total
+            from Message m
+            left join ConversationReadState s
+                on s.conversation.id = m.conversation.id and s.user.id = :userId
+            where m.conversation.id in :conversationIds
+              and (s.lastReadMessageId is null or m.id > s.lastReadMessageId)
+            group by m.conversation.id
+            """)
+    List<ConversationCount> countUnreadByConversationIds(
+            @Param("conversationIds") Collection<Long> conversationIds,
+            @Param("userId") Long userId);
+
+    @Query("select max(m.id) from Message m where m.conversation.id in :conversationIds")
+    Long findMaxIdByConversationIds(@Param("conversationIds") Collection<Long> conversationIds);
+
+    @Query("select m.id from Message m where m.conversation.id = :conversationId order by m.id")
+    List<Long> findIdsByConversationId(@Param("conversationId") Long conversationId);
+
+    @Modifying
+    @Query("update Message m set m.sequence = :sequence where m.id = :id")
+    int updateSequence(@Param("id") Long id, @Param("sequence") Long sequence);
+
+    interface ConversationCount {
+        Long getConversationId();
+
+        long getTotal();
+    }
 }
@@ -5,46 +5,75 @@ import com.example.chatapp.dto.CreateConversationRequest;
 import com.example.chatapp.dto.LoginRequest;
 import com.example.chatapp.dto.MarkConversationReadRequest;
 import com.example.chatapp.dto.MessageDto;
+import com.example.chatapp.dto.MessagePageDto;
+import com.example.chatapp.dto.ReadStateDto;
 import com.example.chatapp.dto.SendMessageRequest;
-import com.example.chatapp.dto.TypingDto;
+import com.example.chatapp.dto.SyncDto;
+import com.example.chatapp.dto.SyncRequest;
 import com.example.chatapp.dto.UserDto;
 import com.example.chatapp.entity.Conversation;
 import com.example.chatapp.entity.Message;
 import com.example.chatapp.entity.ConversationReadState;
 import com.example.chatapp.entity.User;
+import com.example.chatapp.event.ConversationChangedEvent;
+import com.example.chatapp.event.MessageSentEvent;
 import com.example.chatapp.repository.ConversationRepository;
 import com.example.chatapp.repository.MessageRepository;
 import com.example.chatapp.repository.ConversationReadStateRepository;
 import com.example.chatapp.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 @Service
+@Timed(value = "chat.service", histogram = true)
 public class ChatService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int DEFAULT_SYNC_LIMIT = 500;
+    private static final int MAX_SYNC_LIMIT = 2000;
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
     private final UserRepository userRepository;
     private final ConversationRepository conversationRepository;
     private final MessageRepository messageRepository;
     private final ConversationReadStateRepository conversationReadStateRepository;
-    private final ChatSocketService chatSocketService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConversationParticipantIndex participantIndex;
 
     public ChatService(UserRepository userRepository,
                        ConversationRepository conversationRepository,
                        MessageRepository messageRepository,
                        ConversationReadStateRepository conversationReadStateRepository,
-                       ChatSocketService chatSocketService) {
+                       ApplicationEventPublisher eventPublisher,
+                       ConversationParticipantIndex participantIndex) {
         this.userRepository = userRepository;
         this.conversationRepository = conversationRepository;
         this.messageRepository = messageRepository;
         this.conversationReadStateRepository = conversationReadStateRepository;
-        this.chatSocketService = chatSocketService;
+        this.eventPublisher = eventPublisher;
+        this.participantIndex = participantIndex;
     }
 
     @Transactional
@@ -104,13 +133,16 @@ public class ChatService {
         throw new IllegalArgumentException("Either email or username must be provided");
     }
 
+    @Transactional(readOnly = true)
+    public UserDto getUserProfile(Long userId) {
+        return toUserDto(getUserOrThrow(userId));
+    }
+
     @Transactional(readOnly = true)
     public List<ConversationDto> getConversations(Long userId) {
         User user = getUserOrThrow(userId);
-        List<Conversation> conversations = conversationRepository.findAllForUser(user.getId());
-        return conversations.stream()
-                .map(conversation -> toConversationDto(conversation, user.getId()))
-                .collect(Collectors.toList());
+        List<Conversation> conversations = conversationRepository.findInboxForUser(user.getId());
+        return toConversationDtos(conversations, user.getId());
     }
 
     @Transactional
@@ -138,7 +170,7 @@ public class ChatService {
 
         Conversation saved = conversationRepository.save(conversation);
         ConversationDto dto = toConversationDto(saved, initiator.getId());
-        chatSocketService.broadcastConversation(dto);
+        eventPublisher.publishEvent(new ConversationChangedEvent(dto));
         return dto;
     }
 
@@ -151,18 +183,160 @@ public class ChatService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns one page of a conversation's history in ascending id order. Without a cursor the
+     * newest page is returned; {@code before} walks towards older messages and {@code after}
+     * towards newer ones. Cursors are opaque tokens taken from a previous page.
+     */
+    @Transactional(readOnly = true)
+    public MessagePageDto getMessagePage(Long conversationId, String before, String after, Integer limit) {
+        Conversation conversation = getConversationOrThrow(conversationId);
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("Only one of before or after may be provided");
+        }
+
+        int pageSize = resolvePageSize(limit);
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<Message> rows;
+        if (after != null) {
+            rows = messageRepository.findByConversation_IdAndIdGreaterThanOrderByIdAsc(
+                    conversation.getId(), decodeCursor(after), fetchLimit);
+        } else if (before != null) {
+            rows = messageRepository.findByConversation_IdAndIdLessThanOrderByIdDesc(
+                    conversation.getId(), decodeCursor(before), fetchLimit);
+        } else {
+            rows = messageRepository.findByConversation_IdOrderByIdDesc(conversation.getId(), fetchLimit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<MessageDto> messages = rows.stream()
+                .limit(pageSize)
+                .map(this::toMessageDto)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (after == null) {
+            Collections.reverse(messages);
+        }
+        if (messages.isEmpty()) {
+            return new MessagePageDto(messages, null, null);
+        }
+
+        boolean hasOlder = after != null || hasMore;
+        boolean hasNewer = after != null ? hasMore : before != null;
+        String prevCursor = hasOlder ? encodeCursor(messages.get(0).getId()) : null;
+        String nextCursor = hasNewer ? encodeCursor(messages.get(messages.size() - 1).getId()) : null;
+        return new MessagePageDto(messages, prevCursor, nextCursor);
+    }
+
+    /**
+     * Returns what changed for a user since their last sync, so a reconnecting client does not
+     * have to reload every conversation and message.
+     *
+     * <p>With a {@code token} from a previous sync the response holds messages newer than the token,
+     * conversations created since, and read states updated since. With per-conversation
+     * high-water marks instead, only messages newer than each mark are returned and conversations
+     * missing from the map are returned in full. Without either, the response is a snapshot of
+     * the inbox with no messages. When {@code hasMore} is set the client should sync again with
+     * the returned token.</p>
+     *
+     * <p>Ids are assigned on insert but become visible on commit, so a message or conversation may
+     * appear below a watermark handed out earlier. Token syncs therefore also return messages at
+     * or below the watermark, and conversations with their read states, created within
+     * {@link #SYNC_OVERLAP} before that token. Clients must de-duplicate messages and
+     * conversations by id, as they apply read states idempotently.</p>
+     */
+    @Transactional(readOnly = true)
+    public SyncDto sync(Long userId, SyncRequest request) {
+        User user = getUserOrThrow(userId);
+        SyncRequest syncRequest = request != null ? request : new SyncRequest();
+        Map<Long, Long> marks = syncRequest.getConversations() != null ? syncRequest.getConversations() : Map.of();
+        SyncToken token = decodeSyncToken(syncRequest.getToken());
+        int limit = resolveSyncLimit(syncRequest.getLimit());
+        LocalDateTime startedAt = LocalDateTime.now();
+
+        List<Long> conversationIds = conversationRepository.findIdsForUser(user.getId());
+        long conversationWatermark = conversationIds.stream().mapToLong(Long::longValue).max().orElse(0L);
+
+        List<Long> knownIds;
+        List<Long> newIds;
+        if (token != null) {
+            // committed after the previous sync although their ids are below its watermark
+            Set<Long> recent = new HashSet<>(
+                    conversationRepository.findIdsForUserCreatedSince(user.getId(), token.since()));
+            Predicate<Long> isNew = id -> id > token.conversationId() || recent.contains(id);
+            knownIds = conversationIds.stream().filter(isNew.negate()).collect(Collectors.toList());
+            newIds = conversationIds.stream().filter(isNew).collect(Collectors.toList());
+        } else {
+            knownIds = conversationIds.stream().filter(marks::containsKey).collect(Collectors.toList());
+            newIds = conversationIds.stream().filter(id -> !marks.containsKey(id)).collect(Collectors.toList());
+        }
+
+        List<ConversationDto> conversations = newIds.isEmpty()
+                ? List.of()
+                : toConversationDtos(conversationRepository.findWithParticipantsByIdIn(newIds), user.getId());
+
+        List<Long> messageScope = token != null ? conversationIds : knownIds;
+        long afterId = token != null
+                ? token.messageId()
+                : knownIds.stream().mapToLong(id -> marks.getOrDefault(id, 0L)).min().orElse(0L);
+        List<Message> rows = messageScope.isEmpty()
+                ? List.of()
+                : messageRepository.findByConversation_IdInAndIdGreaterThanOrderByIdAsc(
+                        messageScope, afterId, Limit.of(limit + 1));
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+        List<MessageDto> messages = new ArrayList<>();
+        if (token != null && !messageScope.isEmpty()) {
+            // committed after the previous sync although their ids are below its watermark
+            messageRepository.findByConversation_IdInAndIdLessThanEqualAndCreatedAtGreaterThanEqualOrderByIdAsc(
+                            messageScope, token.messageId(), token.since(), Limit.of(limit))
+                    .forEach(message -> messages.add(toMessageDto(message)));
+        }
+        rows.stream()
+                .filter(message -> token != null
+                        || message.getId() > marks.getOrDefault(message.getConversation().getId(), 0L))
+                .forEach(message -> messages.add(toMessageDto(message)));
+
+        long messageWatermark = rows.isEmpty() ? afterId : rows.get(rows.size() - 1).getId();
+        if (token == null && marks.isEmpty()) {
+            Long latest = conversationIds.isEmpty() ? null : messageRepository.findMaxIdByConversationIds(conversationIds);
+            messageWatermark = latest != null ? latest : 0L;
+        } else if (!hasMore && token == null) {
+            messageWatermark = Math.max(messageWatermark,
+                    marks.values().stream().mapToLong(Long::longValue).max().orElse(0L));
+        }
+
+        List<ReadStateDto> readStates = new ArrayList<>();
+        if (!newIds.isEmpty()) {
+            conversationReadStateRepository.findByConversation_IdIn(newIds)
+                    .forEach(state -> readStates.add(toReadStateDto(state)));
+        }
+        if (!knownIds.isEmpty()) {
+            List<ConversationReadState> changed = token != null
+                    ? conversationReadStateRepository.findByConversation_IdInAndLastReadAtGreaterThanEqual(
+                            knownIds, token.since())
+                    : conversationReadStateRepository.findByConversation_IdIn(knownIds);
+            changed.forEach(state -> readStates.add(toReadStateDto(state)));
+        }
+
+        SyncToken next = new SyncToken(messageWatermark, conversationWatermark, startedAt.minus(SYNC_OVERLAP));
+        return new SyncDto(encodeSyncToken(next), hasMore, conversations, messages, readStates);
+    }
+
     @Transactional
     public MessageDto sendMessage(Long conversationId, SendMessageRequest request) {
         if (request == null) {
             throw new IllegalArgumentException("Send message payload is required");
         }
 
-        Conversation conversation = getConversationOrThrow(conversationId);
-        User sender = getUserOrThrow(request.getSenderId());
-
-        if (!conversation.getParticipants().contains(sender)) {
+        Conversation conversation = conversationRepository.findByIdForUpdate(requireConversationId(conversationId))
+                .orElseThrow(() -> new EntityNotFoundException("Conversation not found: " + conversationId));
+        LongIdSet participantIds = participantIndex.getParticipantIds(conversation.getId());
+        if (!participantIds.contains(requireUserId(request.getSenderId()))) {
             throw new IllegalArgumentException("Sender is not part of the conversation");
         }
+        User sender = userRepository.getReferenceById(request.getSenderId());
 
         Message message = new Message();
         message.setConversation(conversation);
@@ -173,13 +347,18 @@ public class ChatService {
             throw new IllegalArgumentException("Message content cannot be empty");
         }
 
+        // legacy conversations are numbered by MessageSequenceBackfill, this message included
+        if (conversation.getLastSequence() != null) {
+            message.setSequence(conversation.nextSequence());
+        }
+
         Message saved = messageRepository.save(message);
         conversation.touch();
         conversationRepository.save(conversation);
-        updateReadState(conversation, sender, saved.getId());
+        updateReadState(conversation, sender, saved);
 
         MessageDto dto = toMessageDto(saved);
-        chatSocketService.broadcastMessage(dto, conversation.getParticipants());
+        eventPublisher.publishEvent(new MessageSentEvent(dto, participantIds));
         return dto;
     }
 
@@ -190,46 +369,110 @@ public class ChatService {
         }
 
         Conversation conversation = getConversationOrThrow(conversationId);
-        User user = getUserOrThrow(request.getUserId());
-
-        if (!conversation.getParticipants().contains(user)) {
+        if (!participantIndex.isParticipant(conversation.getId(), request.getUserId())) {
             throw new IllegalArgumentException("User is not part of the conversation");
         }
+        User user = userRepository.getReferenceById(request.getUserId());
 
         Long targetMessageId = request.getMessageId();
-        Long lastMessageId;
+        Message lastMessage;
 
         if (targetMessageId != null) {
-            Message message = messageRepository.findById(targetMessageId)
+            lastMessage = messageRepository.findById(targetMessageId)
                     .orElseThrow(() -> new EntityNotFoundException("Message not found: " + targetMessageId));
-            if (!Objects.equals(message.getConversation().getId(), conversation.getId())) {
+            if (!Objects.equals(lastMessage.getConversation().getId(), conversation.getId())) {
                 throw new IllegalArgumentException("Message does not belong to the conversation");
             }
-            lastMessageId = message.getId();
         } else {
-            lastMessageId = messageRepository.findTopByConversation_IdOrderByCreatedAtDesc(conversation.getId())
-                    .map(Message::getId)
+            lastMessage = messageRepository.findTopByConversation_IdOrderByCreatedAtDesc(conversation.getId())
                     .orElse(null);
         }
 
-        updateReadState(conversation, user, lastMessageId);
+        updateReadState(conversation, user, lastMessage);
         return toConversationDto(conversation, user.getId());
     }
 
     private User getUserOrThrow(Long userId) {
+        return userRepository.findById(requireUserId(userId))
+                .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId));
+    }
+
+    private Long requireUserId(Long userId) {
         if (userId == null) {
             throw new IllegalArgumentException("User id is required");
         }
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId));
+        return userId;
     }
 
     private Conversation getConversationOrThrow(Long conversationId) {
+        return conversationRepository.findById(requireConversationId(conversationId))
+                .orElseThrow(() -> new EntityNotFoundException("Conversation not found: " + conversationId));
+    }
+
+    private Long requireConversationId(Long conversationId) {
         if (conversationId == null) {
             throw new IllegalArgumentException("Conversation id is required");
         }
-        return conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new EntityNotFoundException("Conversation not found: " + conversationId));
+        return conversationId;
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private String encodeCursor(Long messageId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(messageId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Long decodeCursor(String cursor) {
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private int resolveSyncLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_SYNC_LIMIT;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(limit, MAX_SYNC_LIMIT);
+    }
+
+    /**
+     * Position of a client after a sync: the last delivered message id, the newest conversation id
+     * it has seen and the time from which late messages and read state changes must be replayed.
+     * Both {@code createdAt} and {@code lastReadAt} are set before the writing transaction commits,
+     * hence the small overlap; clients apply what they receive idempotently.
+     */
+    private record SyncToken(long messageId, long conversationId, LocalDateTime since) {
+    }
+
+    private String encodeSyncToken(SyncToken token) {
+        String raw = token.messageId() + "|" + token.conversationId() + "|" + token.since();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private SyncToken decodeSyncToken(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split("\\|");
+            return new SyncToken(Long.parseLong(parts[0]), Long.parseLong(parts[1]), LocalDateTime.parse(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid sync token");
+        }
     }
 
     private User resolveTargetUser(CreateConversationRequest request) {
@@ -243,7 +486,7 @@ public class ChatService {
         throw new IllegalArgumentException("Either targetUserId or targetEmail must be provided");
     }
 
-    private void updateReadState(Conversation conversation, User user, Long lastReadMessageId) {
+    private void updateReadState(Conversation conversation, User user, Message lastReadMessage) {
         if (conversation == null || user == null) {
             return;
         }
@@ -255,50 +498,85 @@ public class ChatService {
                     created.setUser(user);
                     return created;
                 });
-        state.setLastReadMessageId(lastReadMessageId);
+        state.setLastReadMessageId(lastReadMessage != null ? lastReadMessage.getId() : null);
+        state.setLastReadSequence(lastReadMessage != null ? lastReadMessage.getSequence() : null);
         state.setLastReadAt(LocalDateTime.now());
         conversationReadStateRepository.save(state);
     }
 
-    private long calculateUnreadCount(Conversation conversation, Long userId) {
-        if (conversation == null || userId == null) {
-            return 0L;
-        }
-        Optional<ConversationReadState> optionalState =
-                conversationReadStateRepository.findByConversation_IdAndUser_Id(conversation.getId(), userId);
-        if (optionalState.isPresent()) {
-            ConversationReadState state = optionalState.get();
-            Long lastReadMessageId = state.getLastReadMessageId();
-            if (lastReadMessageId != null) {
-                return messageRepository.countByConversation_IdAndIdGreaterThan(conversation.getId(), lastReadMessageId);
-            }
-        }
-        return messageRepository.countByConversation_Id(conversation.getId());
-    }
-
     private ConversationDto toConversationDto(Conversation conversation) {
         return toConversationDto(conversation, null);
     }
 
     private ConversationDto toConversationDto(Conversation conversation, Long viewerId) {
-        MessageDto lastMessage = messageRepository.findTopByConversation_IdOrderByCreatedAtDesc(conversation.getId())
-                .map(this::toMessageDto)
-                .orElse(null);
+        return toConversationDtos(List.of(conversation), viewerId).get(0);
+    }
 
-        List<UserDto> participants = conversation.getParticipants().stream()
-                .map(this::toUserDto)
+    /**
+     * Builds the DTOs for a batch of conversations with a fixed number of queries: one for the
+     * latest messages and one for the viewer's read states, regardless of how many conversations
+     * are passed in. Participants are expected to be initialized already (see
+     * {@link ConversationRepository#findInboxForUser(Long)}).
+     */
+    private List<ConversationDto> toConversationDtos(List<Conversation> conversations, Long viewerId) {
+        if (conversations.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> conversationIds = conversations.stream()
+                .map(Conversation::getId)
                 .collect(Collectors.toList());
 
-        long unreadCount = viewerId != null ? calculateUnreadCount(conversation, viewerId) : 0L;
+        Map<Long, MessageDto> lastMessages = messageRepository.findLatestByConversationIds(conversationIds)
+                .stream()
+                .map(this::toMessageDto)
+                .collect(Collectors.toMap(MessageDto::getConversationId, Function.identity()));
+
+        Map<Long, Long> unreadCounts = viewerId != null ? calculateUnreadCounts(conversations, viewerId) : Map.of();
+
+        return conversations.stream()
+                .map(conversation -> new ConversationDto(
+                        conversation.getId(),
+                        conversation.getTitle(),
+                        conversation.getCreatedAt(),
+                        conversation.getUpdatedAt(),
+                        conversation.getParticipants().stream()
+                                .map(this::toUserDto)
+                                .collect(Collectors.toList()),
+                        lastMessages.get(conversation.getId()),
+                        unreadCounts.getOrDefault(conversation.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
 
-        return new ConversationDto(
-                conversation.getId(),
-                conversation.getTitle(),
-                conversation.getCreatedAt(),
-                conversation.getUpdatedAt(),
-                participants,
-                lastMessage,
-                unreadCount);
+    /**
+     * Unread counts are the difference between the conversation's latest sequence and the
+     * viewer's last read sequence. Conversations not yet migrated by
+     * {@link MessageSequenceBackfill} fall back to counting messages.
+     */
+    private Map<Long, Long> calculateUnreadCounts(List<Conversation> conversations, Long viewerId) {
+        List<Long> conversationIds = conversations.stream()
+                .map(Conversation::getId)
+                .collect(Collectors.toList());
+        Map<Long, Long> lastReadSequences = new HashMap<>();
+        conversationReadStateRepository.findByUser_IdAndConversation_IdIn(viewerId, conversationIds)
+                .forEach(state -> lastReadSequences.put(state.getConversation().getId(), state.getLastReadSequence()));
+
+        Map<Long, Long> unreadCounts = new HashMap<>();
+        List<Long> unmigrated = new ArrayList<>();
+        for (Conversation conversation : conversations) {
+            Long lastSequence = conversation.getLastSequence();
+            if (lastSequence == null) {
+                unmigrated.add(conversation.getId());
+                continue;
+            }
+            Long lastRead = lastReadSequences.get(conversation.getId());
+            unreadCounts.put(conversation.getId(), Math.max(0L, lastSequence - (lastRead != null ? lastRead : 0L)));
+        }
+        if (!unmigrated.isEmpty()) {
+            messageRepository.countUnreadByConversationIds(unmigrated, viewerId)
+                    .forEach(count -> unreadCounts.put(count.getConversationId(), count.getTotal()));
+        }
+        return unreadCounts;
     }
 
     private MessageDto toMessageDto(Message message) {
@@ -310,25 +588,15 @@ public class ChatService {
                 message.getCreatedAt());
     }
 
-    private UserDto toUserDto(User user) {
-        return new UserDto(user.getId(), user.getUsername(), user.getEmail());
+    private ReadStateDto toReadStateDto(ConversationReadState state) {
+        return new ReadStateDto(
+                state.getConversation().getId(),
+                state.getUser().getId(),
+                state.getLastReadMessageId(),
+                state.getLastReadAt());
     }
 
-    @Transactional(readOnly = true)
-    public void handleTypingSignal(Long conversationId, Long userId, boolean isTyping) {
-        Conversation conversation = getConversationOrThrow(conversationId);
-        User user = getUserOrThrow(userId);
-
-        if (!conversation.getParticipants().contains(user)) {
-            throw new IllegalArgumentException("User is not part of the conversation");
-        }
-
-        TypingDto typingDto = new TypingDto(
-                conversation.getId(),
-                user.getId(),
-                isTyping,
-                toUserDto(user));
-
-        chatSocketService.broadcastTyping(typingDto, conversation.getParticipants(), user.getId());
+    private UserDto toUserDto(User user) {
+        return new UserDto(user.getId(), user.getUsername(), user.getEmail());
     }
 }
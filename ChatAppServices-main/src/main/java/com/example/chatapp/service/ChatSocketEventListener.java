@@ -0,0 +1,33 @@
+package com.example.chatapp.service;
+
+import com.example.chatapp.event.ConversationChangedEvent;
+import com.example.chatapp.event.MessageSentEvent;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Forwards chat events to connected sockets after the publishing transaction commits. Events of
+ * a rolled back transaction are never delivered.
+ */
+@Component
+public class ChatSocketEventListener {
+
+    private final ChatSocketService chatSocketService;
+
+    public ChatSocketEventListener(ChatSocketService chatSocketService) {
+        this.chatSocketService = chatSocketService;
+    }
+
+    @Async("socketEventExecutor")
+    @TransactionalEventListener
+    public void onMessageSent(MessageSentEvent event) {
+        chatSocketService.broadcastMessage(event.message(), event.recipientIds());
+    }
+
+    @Async("socketEventExecutor")
+    @TransactionalEventListener
+    public void onConversationChanged(ConversationChangedEvent event) {
+        chatSocketService.broadcastConversation(event.conversation());
+    }
+}
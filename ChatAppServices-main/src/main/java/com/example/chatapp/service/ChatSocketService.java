@@ -5,22 +5,35 @@ import com.example.chatapp.dto.MessageDto;
 import com.example.chatapp.dto.SocketEvent;
 import com.example.chatapp.dto.TypingDto;
 import com.example.chatapp.dto.UserDto;
-import com.example.chatapp.entity.User;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.chatapp.websocket.OutboundQueueMetrics;
+import com.example.chatapp.websocket.OutboundSessionQueue;
+import com.example.chatapp.websocket.OutboundSessionQueue.OverflowPolicy;
+import com.example.chatapp.websocket.SocketFrameCodec;
+import com.example.chatapp.websocket.SocketFrameCodec.EncodedFrame;
+import com.example.chatapp.websocket.SocketFrameEncoding;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.Collection;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 @Service
@@ -28,15 +41,60 @@ public class ChatSocketService {
 
     private static final Logger log = LoggerFactory.getLogger(ChatSocketService.class);
 
-    private final ObjectMapper objectMapper;
+    private final SocketFrameCodec frameCodec;
     private final Map<Long, Set<WebSocketSession>> sessionsByUser = new ConcurrentHashMap<>();
     private final Map<String, Long> sessionToUser = new ConcurrentHashMap<>();
+    private final Map<String, OutboundSessionQueue> outboundQueues = new ConcurrentHashMap<>();
+    private final ExecutorService writer;
+    private final ScheduledExecutorService watchdog;
+    private final long sendTimeLimitMillis;
+    private final long bufferSizeLimit;
+    private final int queueCapacity;
+    private final int framesPerDrain;
+    private final OverflowPolicy overflowPolicy;
+    private final OutboundQueueMetrics queueMetrics;
+    private final DistributionSummary fanoutSize;
+    private final Counter framesOut;
 
-    public ChatSocketService(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public ChatSocketService(SocketFrameCodec frameCodec,
+                             MeterRegistry meterRegistry,
+                             @Value("${chat.socket.writer-threads:4}") int writerThreads,
+                             @Value("${chat.socket.send-time-limit-ms:10000}") long sendTimeLimitMillis,
+                             @Value("${chat.socket.buffer-size-limit:524288}") long bufferSizeLimit,
+                             @Value("${chat.socket.queue-capacity:256}") int queueCapacity,
+                             @Value("${chat.socket.frames-per-drain:32}") int framesPerDrain,
+                             @Value("${chat.socket.overflow-policy:DROP_TYPING}") OverflowPolicy overflowPolicy) {
+        this.frameCodec = frameCodec;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.queueCapacity = queueCapacity;
+        this.framesPerDrain = framesPerDrain;
+        this.overflowPolicy = overflowPolicy;
+        this.writer = Executors.newFixedThreadPool(writerThreads, new CustomizableThreadFactory("chat-socket-writer-"));
+        // closes sessions stuck in a send even if nothing else is ever queued for them
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("chat-socket-watchdog-"));
+        long checkInterval = Math.max(100L, sendTimeLimitMillis / 4);
+        watchdog.scheduleWithFixedDelay(this::checkSendTimeLimits, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        this.queueMetrics = OutboundQueueMetrics.register(meterRegistry);
+        this.fanoutSize = DistributionSummary.builder("chat.socket.fanout.sessions")
+                .description("Sessions an event was queued for")
+                .register(meterRegistry);
+        this.framesOut = Counter.builder("chat.ws.frames.out")
+                .description("Frames queued for websocket sessions")
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.sessions.active", outboundQueues, Map::size)
+                .description("Open websocket sessions")
+                .register(meterRegistry);
     }
 
-    public void registerSession(Long userId, WebSocketSession session) {
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        writer.shutdown();
+    }
+
+    public void registerSession(Long userId, WebSocketSession session, SocketFrameEncoding encoding) {
         if (userId == null || session == null) {
             return;
         }
@@ -44,13 +102,20 @@ public class ChatSocketService {
                 .computeIfAbsent(userId, ignored -> ConcurrentHashMap.newKeySet())
                 .add(session);
         sessionToUser.put(session.getId(), userId);
-        log.debug("Registered websocket session {} for user {}", session.getId(), userId);
+        outboundQueues.put(session.getId(), new OutboundSessionQueue(
+                session, writer, sendTimeLimitMillis, bufferSizeLimit, queueCapacity, framesPerDrain, overflowPolicy,
+                encoding, queueMetrics));
+        log.debug("Registered websocket session {} for user {} using {}", session.getId(), userId, encoding);
     }
 
     public void unregisterSession(WebSocketSession session) {
         if (session == null) {
             return;
         }
+        OutboundSessionQueue queue = outboundQueues.remove(session.getId());
+        if (queue != null) {
+            queue.discard();
+        }
         Long userId = sessionToUser.remove(session.getId());
         if (userId != null) {
             Set<WebSocketSession> sessions = sessionsByUser.get(userId);
@@ -75,33 +140,24 @@ public class ChatSocketService {
         if (conversation == null) {
             return;
         }
-        Set<Long> recipients = conversation.getParticipants().stream()
+        LongIdSet recipients = LongIdSet.of(conversation.getParticipants().stream()
                 .map(UserDto::getId)
-                .collect(Collectors.toSet());
-        sendToUsers(recipients, new SocketEvent<>("conversation", conversation));
+                .collect(Collectors.toList()));
+        sendToUsers(recipients, new SocketEvent<>("conversation", conversation), false, null, 0L);
     }
 
-    public void broadcastMessage(MessageDto message, Collection<User> participants) {
-        if (message == null || participants == null) {
+    public void broadcastMessage(MessageDto message, LongIdSet recipientIds) {
+        if (message == null || recipientIds == null) {
             return;
         }
-        Set<Long> recipients = participants.stream()
-                .map(User::getId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-        sendToUsers(recipients, new SocketEvent<>("message", message));
+        long originMillis = message.getCreatedAt() != null
+                ? message.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0L;
+        sendToUsers(recipientIds, new SocketEvent<>("message", message), false, null, originMillis);
     }
 
-    public void broadcastTyping(TypingDto typing, Collection<User> participants, Long excludeUserId) {
-        if (typing == null || participants == null) {
-            return;
-        }
-        Set<Long> recipients = participants.stream()
-                .map(User::getId)
-                .filter(Objects::nonNull)
-                .filter(id -> excludeUserId == null || !Objects.equals(id, excludeUserId))
-                .collect(Collectors.toSet());
-        if (recipients.isEmpty()) {
+    public void broadcastTyping(TypingDto typing, LongIdSet participantIds, Long excludeUserId) {
+        if (typing == null || participantIds == null || participantIds.isEmpty()) {
             return;
         }
         Map<String, Object> envelope = new HashMap<>();
@@ -120,45 +176,90 @@ public class ChatSocketService {
         }
         envelope.put("status", typing.isTyping() ? "typing" : "stopped");
 
-        sendToUsers(recipients, envelope);
+        sendToUsers(participantIds, envelope, true, excludeUserId, 0L);
     }
 
-    private void sendToUsers(Collection<Long> userIds, Object event) {
-        if (userIds == null || event == null || userIds.isEmpty()) {
+    /**
+     * Queues an event for a single session, e.g. the connection status sent right after the
+     * handshake. Going through the session's queue keeps it ordered with fanout traffic.
+     */
+    public void sendToSession(WebSocketSession session, Object event) {
+        if (session == null || event == null) {
             return;
         }
-//        String payload;
-        String payload;
-        try {
-            payload = objectMapper.writeValueAsString(event);
-        } catch (JsonProcessingException e) {
-            String eventName;
-            if (event instanceof SocketEvent<?> socketEvent) {
-                eventName = socketEvent.getType();
-            } else {
-                eventName = event.getClass().getSimpleName();
+        OutboundSessionQueue queue = outboundQueues.get(session.getId());
+        if (queue != null) {
+            enqueue(queue, frameCodec.encode(event), false, 0L);
+        }
+    }
+
+    private void checkSendTimeLimits() {
+        for (OutboundSessionQueue queue : outboundQueues.values()) {
+            try {
+                queue.checkSendTimeLimit();
+            } catch (RuntimeException e) {
+                log.warn("Send time limit check failed", e);
             }
-            log.warn("Failed to serialize socket event {}", eventName, e);
-            return;
         }
+    }
 
-        TextMessage message = new TextMessage(payload);
-        userIds.stream()
-                .map(sessionsByUser::get)
-                .filter(set -> set != null && !set.isEmpty())
-                .forEach(sessions -> sendToSessions(message, sessions));
+    private void sendToUsers(LongIdSet userIds, Object event, boolean droppable, Long excludeUserId,
+                             long originMillis) {
+        if (userIds == null || event == null || userIds.isEmpty()) {
+            return;
+        }
+        EncodedFrame frame = frameCodec.encode(event);
+        int[] queued = new int[1];
+        userIds.forEach(userId -> {
+            if (excludeUserId != null && excludeUserId == userId) {
+                return;
+            }
+            Set<WebSocketSession> sessions = sessionsByUser.get(userId);
+            if (sessions != null && !sessions.isEmpty()) {
+                queued[0] += sendToSessions(frame, sessions, droppable, originMillis);
+            }
+        });
+        fanoutSize.record(queued[0]);
     }
 
-    private void sendToSessions(TextMessage message, Set<WebSocketSession> sessions) {
+    private int sendToSessions(EncodedFrame frame, Set<WebSocketSession> sessions, boolean droppable,
+                               long originMillis) {
+        int queued = 0;
         for (WebSocketSession session : sessions) {
-            if (session.isOpen()) {
-                try {
-                    session.sendMessage(message);
-                } catch (IOException e) {
-                    log.debug("Failed to send websocket message to session {}", session.getId(), e);
-                }
+            OutboundSessionQueue queue = outboundQueues.get(session.getId());
+            if (queue == null) {
+                continue;
+            }
+            if (!enqueue(queue, frame, droppable, originMillis)) {
+                break;
+            }
+            queued++;
+        }
+        return queued;
+    }
+
+    /**
+     * @return {@code false} if the event could not be serialized, so the caller can stop fanning
+     * it out
+     */
+    private boolean enqueue(OutboundSessionQueue queue, EncodedFrame frame, boolean droppable, long originMillis) {
+        WebSocketMessage<?> message;
+        try {
+            message = frame.forEncoding(queue.getEncoding());
+        } catch (IOException e) {
+            String eventName;
+            if (frame.getEvent() instanceof SocketEvent<?> socketEvent) {
+                eventName = socketEvent.getType();
+            } else {
+                eventName = frame.getEvent().getClass().getSimpleName();
             }
+            log.warn("Failed to serialize socket event {} as {}", eventName, queue.getEncoding(), e);
+            return false;
+        }
+        if (queue.enqueue(message, droppable, originMillis)) {
+            framesOut.increment();
         }
+        return true;
     }
 
     private String resolveDisplayName(UserDto user) {
@@ -0,0 +1,86 @@
+package com.example.chatapp.service;
+
+import com.example.chatapp.dto.UserDto;
+import com.example.chatapp.event.ConversationChangedEvent;
+import com.example.chatapp.repository.ConversationRepository;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory view of which users take part in which conversation, so membership checks and fanout
+ * recipient resolution do not touch the database or walk {@code Conversation.participants}.
+ *
+ * <p>Entries are loaded on first use and kept in an LRU map bounded by
+ * {@code chat.participants.cache-size}. When a conversation is created or joined the entry is
+ * replaced after commit from the published {@link ConversationChangedEvent}. A load that raced
+ * with such an update is discarded rather than cached.</p>
+ */
+@Component
+public class ConversationParticipantIndex {
+
+    private final ConversationRepository conversationRepository;
+    private final Map<Long, LongIdSet> participantsByConversation;
+    private long version;
+
+    public ConversationParticipantIndex(ConversationRepository conversationRepository,
+                                        @Value("${chat.participants.cache-size:50000}") int cacheSize) {
+        this.conversationRepository = conversationRepository;
+        this.participantsByConversation = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, LongIdSet> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public LongIdSet getParticipantIds(Long conversationId) {
+        if (conversationId == null) {
+            return LongIdSet.empty();
+        }
+        long loadVersion;
+        synchronized (this) {
+            LongIdSet cached = participantsByConversation.get(conversationId);
+            if (cached != null) {
+                return cached;
+            }
+            loadVersion = version;
+        }
+
+        LongIdSet loaded = LongIdSet.of(conversationRepository.findParticipantIds(conversationId));
+        synchronized (this) {
+            if (version == loadVersion) {
+                participantsByConversation.put(conversationId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public boolean isParticipant(Long conversationId, Long userId) {
+        return userId != null && getParticipantIds(conversationId).contains(userId.longValue());
+    }
+
+    public synchronized void invalidate(Long conversationId) {
+        if (conversationId != null) {
+            version++;
+            participantsByConversation.remove(conversationId);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onConversationChanged(ConversationChangedEvent event) {
+        if (event.conversation() == null || event.conversation().getParticipants() == null) {
+            return;
+        }
+        LongIdSet participants = LongIdSet.of(event.conversation().getParticipants().stream()
+                .map(UserDto::getId)
+                .collect(Collectors.toList()));
+        synchronized (this) {
+            version++;
+            participantsByConversation.put(event.conversation().getId(), participants);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.chatapp.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable set of {@code long} ids backed by an open-addressing table, so membership checks
+ * neither box nor walk a list. Intended for the small id sets of conversation participants.
+ */
+public final class LongIdSet {
+
+    private static final LongIdSet EMPTY = new LongIdSet(new long[0]);
+    private static final long FREE = Long.MIN_VALUE;
+
+    private final long[] values;
+    private final long[] table;
+    private final int mask;
+
+    private LongIdSet(long[] values) {
+        this.values = values;
+        int capacity = Integer.highestOneBit(Math.max(2, values.length) * 2 - 1) << 1;
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(table, FREE);
+        for (long value : values) {
+            int slot = slot(value);
+            while (table[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = value;
+        }
+    }
+
+    public static LongIdSet of(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return EMPTY;
+        }
+        long[] values = ids.stream()
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .filter(id -> id != FREE)
+                .distinct()
+                .toArray();
+        return values.length == 0 ? EMPTY : new LongIdSet(values);
+    }
+
+    public static LongIdSet empty() {
+        return EMPTY;
+    }
+
+    public boolean contains(long id) {
+        if (id == FREE) {
+            return false;
+        }
+        int slot = slot(id);
+        long current;
+        while ((current = table[slot]) != FREE) {
+            if (current == id) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean contains(Long id) {
+        return id != null && contains(id.longValue());
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        for (long value : values) {
+            action.accept(value);
+        }
+    }
+
+    private int slot(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.chatapp.service;
+
+import com.example.chatapp.entity.Conversation;
+import com.example.chatapp.repository.ConversationReadStateRepository;
+import com.example.chatapp.repository.ConversationRepository;
+import com.example.chatapp.repository.MessageRepository;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Assigns per-conversation sequence numbers to messages written before sequences existed.
+ *
+ * <p>Each conversation is migrated in its own transaction while holding the conversation row lock,
+ * the same lock {@link ChatService#sendMessage} takes, so the job can run while the application
+ * is serving traffic. Messages sent to a conversation before the job reaches it are stored without
+ * a sequence and numbered with the rest; until then its unread counts are computed by counting
+ * messages.</p>
+ */
+@Service
+public class MessageSequenceBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageSequenceBackfill.class);
+
+    private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
+    private final ConversationReadStateRepository conversationReadStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public MessageSequenceBackfill(ConversationRepository conversationRepository,
+                                   MessageRepository messageRepository,
+                                   ConversationReadStateRepository conversationReadStateRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${chat.sequence-backfill.enabled:true}") boolean enabled) {
+        this.conversationRepository = conversationRepository;
+        this.messageRepository = messageRepository;
+        this.conversationReadStateRepository = conversationReadStateRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread worker = new Thread(this::backfillAll, "message-sequence-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void backfillAll() {
+        List<Long> conversationIds = conversationRepository.findIdsWithoutSequence();
+        if (conversationIds.isEmpty()) {
+            return;
+        }
+        log.info("Backfilling message sequences for {} conversations", conversationIds.size());
+        for (Long conversationId : conversationIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> conversationRepository
+                        .findByIdForUpdate(conversationId)
+                        .ifPresent(this::backfill));
+            } catch (RuntimeException ex) {
+                log.warn("Failed to backfill message sequences for conversation {}", conversationId, ex);
+            }
+        }
+        log.info("Finished backfilling message sequences");
+    }
+
+    /**
+     * Numbers the messages of a conversation in id order and derives the read-state sequences
+     * from their last read message. Must be called inside a transaction that holds the
+     * conversation row lock; does nothing if the conversation has already been migrated.
+     */
+    void backfill(Conversation conversation) {
+        if (conversation == null || conversation.getLastSequence() != null) {
+            return;
+        }
+        long sequence = 0L;
+        for (Long messageId : messageRepository.findIdsByConversationId(conversation.getId())) {
+            messageRepository.updateSequence(messageId, ++sequence);
+        }
+        conversationReadStateRepository.backfillLastReadSequence(conversation.getId());
+        conversation.setLastSequence(sequence);
+        conversationRepository.save(conversation);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.chatapp.service;
+
+import com.example.chatapp.dto.TypingDto;
+import com.example.chatapp.dto.UserDto;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Relays typing signals without touching the database.
+ *
+ * <p>Membership is checked against {@link ConversationParticipantIndex}. Repeated "typing" signals
+ * from the same user in the same conversation are coalesced: only the first one within the
+ * throttle window is broadcast, later ones merely extend the typing state. A typing state that is
+ * not refreshed before the timeout expires is ended server-side with a "stopped" broadcast, so
+ * recipients never see a stuck indicator when a client disappears mid-typing. Each typing state
+ * owns exactly one pending expiry task, which is cancelled when the user stops typing.</p>
+ */
+@Service
+public class TypingIndicatorService {
+
+    private record TypingKey(Long conversationId, Long userId) {
+    }
+
+    private static final class TypingState {
+        private final UserDto user;
+        private volatile long lastBroadcastAt;
+        private volatile long expiresAt;
+        private ScheduledFuture<?> expiry;
+
+        private TypingState(UserDto user) {
+            this.user = user;
+        }
+    }
+
+    private final ConversationParticipantIndex participantIndex;
+    private final ChatSocketService chatSocketService;
+    private final long throttleMillis;
+    private final long timeoutMillis;
+    private final Map<TypingKey, TypingState> activeTyping = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor timer =
+            new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("chat-typing-timer-"));
+
+    public TypingIndicatorService(ConversationParticipantIndex participantIndex,
+                                  ChatSocketService chatSocketService,
+                                  @Value("${chat.typing.throttle-ms:2000}") long throttleMillis,
+                                  @Value("${chat.typing.timeout-ms:5000}") long timeoutMillis) {
+        this.participantIndex = participantIndex;
+        this.chatSocketService = chatSocketService;
+        this.throttleMillis = throttleMillis;
+        this.timeoutMillis = timeoutMillis;
+        // cancelled expiries of users who stopped typing must not pile up in the timer queue
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    public void handleTypingSignal(Long conversationId, UserDto user, boolean isTyping) {
+        if (conversationId == null || user == null || user.getId() == null) {
+            throw new IllegalArgumentException("Conversation id and user are required");
+        }
+        if (!participantIndex.isParticipant(conversationId, user.getId())) {
+            throw new IllegalArgumentException("User is not part of the conversation");
+        }
+
+        TypingKey key = new TypingKey(conversationId, user.getId());
+        if (!isTyping) {
+            TypingState stopped = activeTyping.remove(key);
+            if (stopped != null) {
+                stopped.expiry.cancel(false);
+                broadcast(key, user, false);
+            }
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        boolean[] rebroadcast = new boolean[1];
+        activeTyping.compute(key, (ignored, state) -> {
+            if (state == null) {
+                TypingState created = new TypingState(user);
+                created.expiry = timer.schedule(() -> expire(key, created), timeoutMillis, TimeUnit.MILLISECONDS);
+                state = created;
+            }
+            if (now - state.lastBroadcastAt >= throttleMillis) {
+                state.lastBroadcastAt = now;
+                rebroadcast[0] = true;
+            }
+            state.expiresAt = now + timeoutMillis;
+            return state;
+        });
+
+        if (rebroadcast[0]) {
+            broadcast(key, user, true);
+        }
+    }
+
+    // expiry tasks waiting in the timer, for tests
+    int pendingExpiries() {
+        return timer.getQueue().size();
+    }
+
+    private void expire(TypingKey key, TypingState owner) {
+        long now = System.currentTimeMillis();
+        TypingState[] expired = new TypingState[1];
+        activeTyping.computeIfPresent(key, (ignored, state) -> {
+            if (state != owner) {
+                // the user stopped and started again, the new state has its own expiry
+                return state;
+            }
+            if (state.expiresAt > now) {
+                // refreshed since this task was scheduled, so it takes over as the state's expiry
+                state.expiry = timer.schedule(() -> expire(key, owner), state.expiresAt - now, TimeUnit.MILLISECONDS);
+                return state;
+            }
+            expired[0] = state;
+            return null;
+        });
+        if (expired[0] != null) {
+            broadcast(key, expired[0].user, false);
+        }
+    }
+
+    private void broadcast(TypingKey key, UserDto user, boolean isTyping) {
+        LongIdSet participants = participantIndex.getParticipantIds(key.conversationId());
+        TypingDto typingDto = new TypingDto(key.conversationId(), key.userId(), isTyping, user);
+        chatSocketService.broadcastTyping(typingDto, participants, key.userId());
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.chatapp.websocket;
 
 import com.example.chatapp.dto.SocketEvent;
+import com.example.chatapp.dto.UserDto;
 import com.example.chatapp.service.ChatService;
 import com.example.chatapp.service.ChatSocketService;
+import com.example.chatapp.service.TypingIndicatorService;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.IOException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
@@ -17,38 +20,81 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 @Component
-public class ChatWebSocketHandler extends TextWebSocketHandler {
+public class ChatWebSocketHandler extends AbstractWebSocketHandler {
 
     private static final Logger log = LoggerFactory.getLogger(ChatWebSocketHandler.class);
 
+    private static final String USER_ATTRIBUTE = "chatUser";
+
     private final ChatSocketService chatSocketService;
     private final ChatService chatService;
-    private final ObjectMapper objectMapper;
+    private final TypingIndicatorService typingIndicatorService;
+    private final SocketFrameCodec frameCodec;
+    private final Counter textFramesIn;
+    private final Counter binaryFramesIn;
+    private final Counter parseFailures;
 
     public ChatWebSocketHandler(ChatSocketService chatSocketService,
                                 ChatService chatService,
-                                ObjectMapper objectMapper) {
+                                TypingIndicatorService typingIndicatorService,
+                                SocketFrameCodec frameCodec,
+                                MeterRegistry meterRegistry) {
         this.chatSocketService = chatSocketService;
         this.chatService = chatService;
-        this.objectMapper = objectMapper;
+        this.typingIndicatorService = typingIndicatorService;
+        this.frameCodec = frameCodec;
+        this.textFramesIn = framesInCounter(meterRegistry, "text");
+        this.binaryFramesIn = framesInCounter(meterRegistry, "binary");
+        this.parseFailures = Counter.builder("chat.ws.parse.failures")
+                .description("Inbound websocket frames that could not be decoded")
+                .register(meterRegistry);
+    }
+
+    private static Counter framesInCounter(MeterRegistry meterRegistry, String frameType) {
+        return Counter.builder("chat.ws.frames.in")
+                .description("Frames received from websocket clients")
+                .tag("frame", frameType)
+                .register(meterRegistry);
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        Long userId = extractUserId(session);
+        Map<String, String> params = extractQueryParams(session);
+        Long userId = parseUserId(params.get("userId"));
         if (userId == null) {
             log.debug("Closing websocket session {} - missing userId", session.getId());
             session.close(CloseStatus.BAD_DATA);
             return;
         }
 
-        chatSocketService.registerSession(userId, session);
+        SocketFrameEncoding encoding;
+        try {
+            encoding = SocketFrameEncoding.fromParameter(params.get("encoding"));
+        } catch (IllegalArgumentException ex) {
+            log.debug("Closing websocket session {} - {}", session.getId(), ex.getMessage());
+            session.close(CloseStatus.BAD_DATA);
+            return;
+        }
+
+        UserDto user;
+        try {
+            user = chatService.getUserProfile(userId);
+        } catch (EntityNotFoundException ex) {
+            log.debug("Closing websocket session {} - unknown user {}", session.getId(), userId);
+            session.close(CloseStatus.BAD_DATA);
+            return;
+        }
+
+        session.getAttributes().put(USER_ATTRIBUTE, user);
+        chatSocketService.registerSession(userId, session, encoding);
         sendStatus(session, "connected");
     }
 
@@ -68,12 +114,32 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        textFramesIn.increment();
         if (message == null || !StringUtils.hasText(message.getPayload())) {
             return;
         }
+        handleFrame(session, message);
+    }
 
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        binaryFramesIn.increment();
+        if (message == null || message.getPayloadLength() == 0) {
+            return;
+        }
+        handleFrame(session, message);
+    }
+
+    private void handleFrame(WebSocketSession session, WebSocketMessage<?> message) {
+        JsonNode root;
+        try {
+            root = frameCodec.decode(message);
+        } catch (Exception ex) {
+            parseFailures.increment();
+            log.debug("Failed to decode websocket payload {}", message, ex);
+            return;
+        }
         try {
-            JsonNode root = objectMapper.readTree(message.getPayload());
             String type = resolveType(root);
 
             if (!"typing".equals(type)) {
@@ -83,7 +149,7 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
 
             Long conversationId = resolveLong(root, "conversationId");
             if (conversationId == null) {
-                log.debug("Ignoring typing event without conversationId {}", message.getPayload());
+                log.debug("Ignoring typing event without conversationId {}", message);
                 return;
             }
 
@@ -98,42 +164,36 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
 
             boolean isTyping = resolveBoolean(root, "isTyping", true);
             try {
-                chatService.handleTypingSignal(conversationId, userId, isTyping);
+                typingIndicatorService.handleTypingSignal(
+                        conversationId, (UserDto) session.getAttributes().get(USER_ATTRIBUTE), isTyping);
             } catch (IllegalArgumentException ex) {
                 log.debug("Rejected typing signal for conversation {} user {}: {}", conversationId, userId, ex.getMessage());
             }
         } catch (Exception ex) {
-            log.debug("Failed to process websocket payload {}", message.getPayload(), ex);
+            log.debug("Failed to process websocket payload {}", message, ex);
         }
     }
 
     private void sendStatus(WebSocketSession session, String status) {
-        if (!session.isOpen()) {
-            return;
-        }
-        try {
-            String payload = objectMapper.writeValueAsString(new SocketEvent<>("status", status));
-            session.sendMessage(new TextMessage(payload));
-        } catch (IOException e) {
-            log.debug("Failed to send status message to session {}", session.getId(), e);
-        }
+        chatSocketService.sendToSession(session, new SocketEvent<>("status", status));
     }
 
-    private Long extractUserId(WebSocketSession session) {
+    private Map<String, String> extractQueryParams(WebSocketSession session) {
         URI uri = session.getUri();
         if (uri == null || uri.getQuery() == null) {
-            return null;
+            return Map.of();
         }
 
-        Map<String, String> params = Arrays.stream(uri.getQuery().split("&"))
+        return Arrays.stream(uri.getQuery().split("&"))
                 .map(pair -> pair.split("=", 2))
                 .filter(parts -> parts.length == 2)
                 .collect(Collectors.toMap(
                         parts -> decode(parts[0]),
                         parts -> decode(parts[1]),
                         (left, right) -> right));
+    }
 
-        String userId = params.get("userId");
+    private Long parseUserId(String userId) {
         if (userId == null) {
             return null;
         }
@@ -0,0 +1,40 @@
+package com.example.chatapp.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters shared by all {@link OutboundSessionQueue}s.
+ *
+ * @param queueWait  time a frame spent buffered before its write started
+ * @param send       duration of the socket write itself
+ * @param delivery   time from the origin of a message (its creation) until it was written
+ * @param dropped    frames discarded by the overflow policy
+ * @param disconnects sessions closed for being too slow
+ */
+public record OutboundQueueMetrics(Timer queueWait,
+                                   Timer send,
+                                   Timer delivery,
+                                   Counter dropped,
+                                   Counter disconnects) {
+
+    public static OutboundQueueMetrics register(MeterRegistry registry) {
+        return new OutboundQueueMetrics(
+                Timer.builder("chat.socket.queue.wait")
+                        .description("Time a frame waited in the outbound session queue")
+                        .register(registry),
+                Timer.builder("chat.socket.send")
+                        .description("Duration of a single websocket write")
+                        .register(registry),
+                Timer.builder("chat.message.delivery")
+                        .description("Time from message creation until it was written to a recipient socket")
+                        .register(registry),
+                Counter.builder("chat.socket.frames.dropped")
+                        .description("Outbound frames discarded by the overflow policy")
+                        .register(registry),
+                Counter.builder("chat.socket.disconnects")
+                        .description("Sessions closed because they could not keep up")
+                        .register(registry));
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.chatapp.websocket;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Bounded outbound buffer for a single {@link WebSocketSession}.
+ *
+ * <p>{@link #enqueue} never performs socket I/O: frames are appended to the queue and drained in
+ * order by a writer task running on the shared writer executor, with at most one writer per
+ * session at a time. A writer task sends at most {@code framesPerDrain} frames and then resubmits
+ * itself, so busy sessions take turns on the writer threads. A session that stays inside one send
+ * for longer than the send time limit, or whose buffer overflows under the
+ * {@link OverflowPolicy#DISCONNECT} policy, is closed; the send time limit is checked on every
+ * enqueue and periodically through {@link #checkSendTimeLimit()}.</p>
+ */
+public class OutboundSessionQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundSessionQueue.class);
+
+    public enum OverflowPolicy {
+        /** Discard the oldest queued frames until the buffer fits again. */
+        DROP_OLDEST,
+        /** Discard queued typing frames; close the session if that is not enough. */
+        DROP_TYPING,
+        /** Close the session as soon as the buffer overflows. */
+        DISCONNECT
+    }
+
+    private record Frame(WebSocketMessage<?> message, boolean droppable, long enqueuedAt, long originMillis) {
+    }
+
+    private final WebSocketSession session;
+    private final Executor writer;
+    private final long sendTimeLimitMillis;
+    private final long bufferSizeLimit;
+    private final int capacity;
+    private final int framesPerDrain;
+    private final OverflowPolicy overflowPolicy;
+    private final SocketFrameEncoding encoding;
+    private final OutboundQueueMetrics metrics;
+
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private long bufferedBytes;
+    private boolean draining;
+
+    private volatile long sendStartedAt;
+    private volatile boolean closed;
+
+    public OutboundSessionQueue(WebSocketSession session,
+                                Executor writer,
+                                long sendTimeLimitMillis,
+                                long bufferSizeLimit,
+                                int capacity,
+                                int framesPerDrain,
+                                OverflowPolicy overflowPolicy,
+                                SocketFrameEncoding encoding,
+                                OutboundQueueMetrics metrics) {
+        this.session = session;
+        this.writer = writer;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.capacity = capacity;
+        this.framesPerDrain = Math.max(1, framesPerDrain);
+        this.overflowPolicy = overflowPolicy;
+        this.encoding = encoding;
+        this.metrics = metrics;
+    }
+
+    public SocketFrameEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Queues a frame for delivery. {@code droppable} marks frames such as typing signals that may
+     * be discarded under {@link OverflowPolicy#DROP_TYPING}.
+     *
+     * @return {@code false} if the frame was not accepted because the session is closed or had to
+     * be closed
+     */
+    public boolean enqueue(WebSocketMessage<?> message, boolean droppable) {
+        return enqueue(message, droppable, 0L);
+    }
+
+    /**
+     * Queues a frame whose content originated at {@code originMillis} (epoch millis), so the time
+     * until it is written is recorded as delivery latency. {@code 0} means no origin is known.
+     */
+    public boolean enqueue(WebSocketMessage<?> message, boolean droppable, long originMillis) {
+        if (closed || !session.isOpen() || checkSendTimeLimit()) {
+            return false;
+        }
+
+        boolean overflowed;
+        boolean schedule = false;
+        synchronized (this) {
+            frames.addLast(new Frame(message, droppable, System.nanoTime(), originMillis));
+            bufferedBytes += message.getPayloadLength();
+            overflowed = !applyOverflowPolicy();
+            if (overflowed) {
+                frames.clear();
+                bufferedBytes = 0;
+            } else if (!draining) {
+                schedule = true;
+                draining = true;
+            }
+        }
+
+        if (overflowed) {
+            close("outbound buffer limit exceeded");
+            return false;
+        }
+        if (schedule) {
+            scheduleDrain();
+        }
+        return true;
+    }
+
+    /**
+     * Closes the session if a send has been blocked for longer than the send time limit, so a
+     * stuck client does not hold its writer thread until it sends again.
+     *
+     * @return {@code true} if the session was closed
+     */
+    public boolean checkSendTimeLimit() {
+        long startedAt = sendStartedAt;
+        if (closed || startedAt == 0 || System.currentTimeMillis() - startedAt <= sendTimeLimitMillis) {
+            return false;
+        }
+        close("send time limit of " + sendTimeLimitMillis + " ms exceeded");
+        return true;
+    }
+
+    public synchronized int size() {
+        return frames.size();
+    }
+
+    public void discard() {
+        closed = true;
+        synchronized (this) {
+            frames.clear();
+            bufferedBytes = 0;
+        }
+    }
+
+    private boolean applyOverflowPolicy() {
+        if (!isOverflowing()) {
+            return true;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                while (isOverflowing() && frames.size() > 1) {
+                    bufferedBytes -= frames.pollFirst().message().getPayloadLength();
+                    metrics.dropped().increment();
+                }
+                log.debug("Dropped oldest frames for slow websocket session {}", session.getId());
+                return !isOverflowing();
+            }
+            case DROP_TYPING -> {
+                Iterator<Frame> iterator = frames.iterator();
+                while (isOverflowing() && iterator.hasNext()) {
+                    Frame frame = iterator.next();
+                    if (frame.droppable()) {
+                        iterator.remove();
+                        bufferedBytes -= frame.message().getPayloadLength();
+                        metrics.dropped().increment();
+                    }
+                }
+                log.debug("Dropped typing frames for slow websocket session {}", session.getId());
+                return !isOverflowing();
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private boolean isOverflowing() {
+        return frames.size() > capacity || bufferedBytes > bufferSizeLimit;
+    }
+
+    private void scheduleDrain() {
+        try {
+            writer.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                draining = false;
+            }
+            log.debug("Writer rejected drain of websocket session {}", session.getId(), e);
+        }
+    }
+
+    private void drain() {
+        for (int sent = 0; ; sent++) {
+            Frame frame;
+            synchronized (this) {
+                if (closed || frames.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                if (sent == framesPerDrain) {
+                    // give the writer to other sessions and continue after them
+                    break;
+                }
+                frame = frames.pollFirst();
+                bufferedBytes -= frame.message().getPayloadLength();
+            }
+            if (!session.isOpen()) {
+                discard();
+                continue;
+            }
+            long startedAt = System.nanoTime();
+            metrics.queueWait().record(startedAt - frame.enqueuedAt(), TimeUnit.NANOSECONDS);
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                session.sendMessage(frame.message());
+                metrics.send().record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                if (frame.originMillis() > 0) {
+                    metrics.delivery().record(
+                            Math.max(0L, System.currentTimeMillis() - frame.originMillis()), TimeUnit.MILLISECONDS);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to send websocket message to session {}", session.getId(), e);
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+        scheduleDrain();
+    }
+
+    private void close(String reason) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        metrics.disconnects().increment();
+        log.debug("Closing websocket session {}: {}", session.getId(), reason);
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason(reason));
+        } catch (IOException e) {
+            log.debug("Failed to close websocket session {}", session.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.chatapp.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * Encodes outbound socket events and decodes inbound frames for every {@link SocketFrameEncoding}.
+ * The CBOR mapper is derived from the application's {@link ObjectMapper}, so both encodings share
+ * the same modules and serialization settings.
+ */
+@Component
+public class SocketFrameCodec {
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+
+    public SocketFrameCodec(ObjectMapper objectMapper) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+    }
+
+    /**
+     * Wraps an event so that it is serialized at most once per encoding, however many sessions it
+     * is delivered to.
+     */
+    public EncodedFrame encode(Object event) {
+        return new EncodedFrame(event);
+    }
+
+    public JsonNode decode(WebSocketMessage<?> message) throws IOException {
+        if (message instanceof BinaryMessage binaryMessage) {
+            ByteBuffer payload = binaryMessage.getPayload();
+            byte[] bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            return cborMapper.readTree(bytes);
+        }
+        return jsonMapper.readTree(((TextMessage) message).getPayload());
+    }
+
+    /**
+     * An event with lazily computed, shared encodings. Not thread-safe; meant to be used by the
+     * thread performing one fanout.
+     */
+    public final class EncodedFrame {
+
+        private final Object event;
+        private TextMessage json;
+        private byte[] cbor;
+
+        private EncodedFrame(Object event) {
+            this.event = event;
+        }
+
+        public Object getEvent() {
+            return event;
+        }
+
+        /**
+         * Returns the frame for a session using the given encoding. JSON sessions share one
+         * {@link TextMessage}; CBOR sessions each get a read-only view of one shared byte array,
+         * since containers consume the buffer position while writing.
+         */
+        public WebSocketMessage<?> forEncoding(SocketFrameEncoding encoding) throws IOException {
+            if (encoding == SocketFrameEncoding.CBOR) {
+                if (cbor == null) {
+                    cbor = cborMapper.writeValueAsBytes(event);
+                }
+                return new BinaryMessage(ByteBuffer.wrap(cbor).asReadOnlyBuffer());
+            }
+            if (json == null) {
+                json = new TextMessage(jsonMapper.writeValueAsString(event));
+            }
+            return json;
+        }
+    }
+}
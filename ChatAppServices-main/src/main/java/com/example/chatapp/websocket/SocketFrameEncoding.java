@@ -0,0 +1,26 @@
+package com.example.chatapp.websocket;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Wire encoding of socket events, chosen by the client with the {@code encoding} query parameter
+ * when connecting to {@code /ws/chat}.
+ */
+public enum SocketFrameEncoding {
+    /** JSON in text frames; the default. */
+    JSON,
+    /** CBOR in binary frames. */
+    CBOR;
+
+    public static SocketFrameEncoding fromParameter(String value) {
+        if (!StringUtils.hasText(value)) {
+            return JSON;
+        }
+        for (SocketFrameEncoding encoding : values()) {
+            if (encoding.name().equalsIgnoreCase(value.trim())) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported socket encoding: " + value);
+    }
+}
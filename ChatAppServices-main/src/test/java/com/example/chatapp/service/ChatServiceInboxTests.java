@@ -0,0 +1,99 @@
+package com.example.chatapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.chatapp.dto.ConversationDto;
+import com.example.chatapp.entity.Conversation;
+import com.example.chatapp.entity.Message;
+import com.example.chatapp.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import({ChatService.class, ConversationParticipantIndex.class})
+class ChatServiceInboxTests {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void inboxStatementCountDoesNotGrowWithConversationCount() {
+        User owner = persistUser("owner");
+        seedConversations(owner, 3);
+        long smallInbox = countStatements(owner.getId(), 3);
+
+        seedConversations(owner, 30);
+        long largeInbox = countStatements(owner.getId(), 33);
+
+        assertThat(largeInbox).isEqualTo(smallInbox);
+    }
+
+    @Test
+    void inboxCarriesLastMessageAndUnreadCount() {
+        User owner = persistUser("reader");
+        seedConversations(owner, 2);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<ConversationDto> inbox = chatService.getConversations(owner.getId());
+
+        assertThat(inbox).hasSize(2).allSatisfy(conversation -> {
+            assertThat(conversation.getParticipants()).hasSize(2);
+            assertThat(conversation.getLastMessage()).isNotNull();
+            assertThat(conversation.getLastMessage().getContent()).isEqualTo("message 2");
+            assertThat(conversation.getUnreadCount()).isEqualTo(3L);
+        });
+    }
+
+    private long countStatements(Long userId, int expectedSize) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ConversationDto> inbox = chatService.getConversations(userId);
+
+        assertThat(inbox).hasSize(expectedSize);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seedConversations(User detachedOwner, int count) {
+        User owner = entityManager.find(User.class, detachedOwner.getId());
+        for (int i = 0; i < count; i++) {
+            User peer = persistUser("peer-" + owner.getUsername() + "-" + System.nanoTime());
+            Conversation conversation = new Conversation();
+            conversation.addParticipant(owner);
+            conversation.addParticipant(peer);
+            entityManager.persist(conversation);
+            for (int m = 0; m < 3; m++) {
+                Message message = new Message();
+                message.setConversation(conversation);
+                message.setSender(peer);
+                message.setContent("message " + m);
+                message.setSequence(conversation.nextSequence());
+                entityManager.persist(message);
+            }
+        }
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        entityManager.persist(user);
+        return user;
+    }
+}
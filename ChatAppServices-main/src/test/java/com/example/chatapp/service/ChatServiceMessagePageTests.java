@@ -0,0 +1,131 @@
+package com.example.chatapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.chatapp.dto.MessageDto;
+import com.example.chatapp.dto.MessagePageDto;
+import com.example.chatapp.entity.Conversation;
+import com.example.chatapp.entity.Message;
+import com.example.chatapp.entity.User;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import({ChatService.class, ConversationParticipantIndex.class})
+class ChatServiceMessagePageTests {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void walksFromTheNewestPageToTheOldestAndBack() {
+        Conversation conversation = seedConversation(7);
+        List<Long> ids = messageIds(conversation);
+
+        MessagePageDto newest = chatService.getMessagePage(conversation.getId(), null, null, 3);
+        assertThat(idsOf(newest)).containsExactlyElementsOf(ids.subList(4, 7));
+        assertThat(newest.getPrevCursor()).isNotNull();
+        assertThat(newest.getNextCursor()).isNull();
+
+        MessagePageDto middle = chatService.getMessagePage(conversation.getId(), newest.getPrevCursor(), null, 3);
+        assertThat(idsOf(middle)).containsExactlyElementsOf(ids.subList(1, 4));
+        assertThat(middle.getPrevCursor()).isNotNull();
+        assertThat(middle.getNextCursor()).isNotNull();
+
+        // the oldest page is short and has nothing before it
+        MessagePageDto oldest = chatService.getMessagePage(conversation.getId(), middle.getPrevCursor(), null, 3);
+        assertThat(idsOf(oldest)).containsExactly(ids.get(0));
+        assertThat(oldest.getPrevCursor()).isNull();
+        assertThat(oldest.getNextCursor()).isNotNull();
+
+        MessagePageDto forward = chatService.getMessagePage(conversation.getId(), null, middle.getNextCursor(), 3);
+        assertThat(idsOf(forward)).containsExactlyElementsOf(ids.subList(4, 7));
+        assertThat(forward.getPrevCursor()).isNotNull();
+        assertThat(forward.getNextCursor()).isNull();
+    }
+
+    @Test
+    void aPageExactlyAtTheBoundaryHasNoFurtherCursor() {
+        Conversation conversation = seedConversation(3);
+        List<Long> ids = messageIds(conversation);
+
+        MessagePageDto all = chatService.getMessagePage(conversation.getId(), null, null, 3);
+        assertThat(idsOf(all)).containsExactlyElementsOf(ids);
+        assertThat(all.getPrevCursor()).isNull();
+        assertThat(all.getNextCursor()).isNull();
+
+        MessagePageDto afterNewest = chatService.getMessagePage(conversation.getId(), null,
+                chatService.getMessagePage(conversation.getId(), null, null, 1).getPrevCursor(), 2);
+        assertThat(idsOf(afterNewest)).isEmpty();
+        assertThat(afterNewest.getPrevCursor()).isNull();
+        assertThat(afterNewest.getNextCursor()).isNull();
+    }
+
+    @Test
+    void anEmptyConversationHasAnEmptyPage() {
+        Conversation conversation = seedConversation(0);
+
+        MessagePageDto page = chatService.getMessagePage(conversation.getId(), null, null, null);
+
+        assertThat(page.getMessages()).isEmpty();
+        assertThat(page.getPrevCursor()).isNull();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsBothCursorsAndMalformedCursors() {
+        Conversation conversation = seedConversation(2);
+        String cursor = chatService.getMessagePage(conversation.getId(), null, null, 1).getPrevCursor();
+
+        assertThatThrownBy(() -> chatService.getMessagePage(conversation.getId(), cursor, cursor, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> chatService.getMessagePage(conversation.getId(), "not a cursor!", null, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Conversation seedConversation(int messageCount) {
+        User user = new User();
+        user.setUsername("pager-" + System.nanoTime());
+        user.setEmail(user.getUsername() + "@example.com");
+        entityManager.persist(user);
+
+        Conversation conversation = new Conversation();
+        conversation.addParticipant(user);
+        entityManager.persist(conversation);
+        for (int i = 0; i < messageCount; i++) {
+            Message message = new Message();
+            message.setConversation(conversation);
+            message.setSender(user);
+            message.setContent("message " + i);
+            message.setSequence(conversation.nextSequence());
+            entityManager.persist(message);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return conversation;
+    }
+
+    private List<Long> messageIds(Conversation conversation) {
+        return entityManager.createQuery(
+                        "select m.id from Message m where m.conversation.id = :id order by m.id", Long.class)
+                .setParameter("id", conversation.getId())
+                .getResultList();
+    }
+
+    private List<Long> idsOf(MessagePageDto page) {
+        List<Long> ids = new ArrayList<>();
+        for (MessageDto message : page.getMessages()) {
+            ids.add(message.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.chatapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.chatapp.dto.ConversationDto;
+import com.example.chatapp.dto.MessageDto;
+import com.example.chatapp.dto.SyncDto;
+import com.example.chatapp.dto.SyncRequest;
+import com.example.chatapp.entity.Conversation;
+import com.example.chatapp.entity.Message;
+import com.example.chatapp.entity.User;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import({ChatService.class, ConversationParticipantIndex.class})
+class ChatServiceSyncTests {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void firstSyncWithoutMarksIsASnapshotWithoutMessages() {
+        User user = persistUser("fresh");
+        Conversation conversation = persistConversation(user);
+        // loaded by the client through the history endpoint
+        Set<Long> history = new LinkedHashSet<>(ids(persistMessages(conversation, user, 3)));
+
+        SyncDto first = chatService.sync(user.getId(), null);
+
+        assertThat(first.getConversations()).extracting(ConversationDto::getId).containsExactly(conversation.getId());
+        assertThat(first.getMessages()).isEmpty();
+        assertThat(first.isHasMore()).isFalse();
+
+        // the token starts after the existing messages
+        List<Message> later = persistMessages(conversation, user, 1);
+        SyncDto next = sync(user, first.getToken(), null, null);
+        assertThat(newIds(next, history)).containsExactly(later.get(0).getId());
+        assertThat(newConversationIds(next, Set.of(conversation.getId()))).isEmpty();
+    }
+
+    @Test
+    void pagesThroughMessagesWithHasMore() {
+        User user = persistUser("pager");
+        Conversation conversation = persistConversation(user);
+        SyncDto snapshot = chatService.sync(user.getId(), null);
+        List<Long> sent = ids(persistMessages(conversation, user, 5));
+
+        Set<Long> received = new LinkedHashSet<>();
+        SyncDto page = sync(user, snapshot.getToken(), null, 2);
+        int pages = 1;
+        while (page.isHasMore()) {
+            assertThat(page.getMessages()).isNotEmpty();
+            received.addAll(newIds(page, received));
+            page = sync(user, page.getToken(), null, 2);
+            pages++;
+        }
+        received.addAll(newIds(page, received));
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(received).containsExactlyElementsOf(sent);
+    }
+
+    @Test
+    void switchesFromMarksToTheReturnedToken() {
+        User user = persistUser("marks");
+        Conversation known = persistConversation(user);
+        List<Long> knownIds = ids(persistMessages(known, user, 3));
+        Conversation unknown = persistConversation(user);
+        List<Long> unknownIds = ids(persistMessages(unknown, user, 2));
+
+        SyncDto byMarks = sync(user, null, Map.of(known.getId(), knownIds.get(0)), null);
+
+        assertThat(byMarks.getConversations()).extracting(ConversationDto::getId).containsExactly(unknown.getId());
+        assertThat(newIds(byMarks, Set.of())).containsExactlyElementsOf(knownIds.subList(1, 3));
+
+        List<Long> later = ids(persistMessages(unknown, user, 1));
+        SyncDto byToken = sync(user, byMarks.getToken(), null, null);
+        assertThat(newConversationIds(byToken, Set.of(known.getId(), unknown.getId()))).isEmpty();
+        assertThat(byToken.getMessages()).extracting(MessageDto::getId).contains(later.get(0));
+        // the new conversation's history is loaded separately
+        Set<Long> received = new LinkedHashSet<>(knownIds);
+        received.addAll(unknownIds);
+        assertThat(newIds(byToken, received)).containsExactlyElementsOf(later);
+    }
+
+    @Test
+    void returnsAMessageThatCommittedBelowTheWatermark() {
+        User user = persistUser("late");
+        Conversation conversation = persistConversation(user);
+        SyncDto snapshot = chatService.sync(user.getId(), null);
+        List<Message> messages = persistMessages(conversation, user, 3);
+
+        // the middle message's transaction has not committed yet when the client syncs
+        Message late = messages.get(1);
+        entityManager.createNativeQuery("delete from messages where id = :id")
+                .setParameter("id", late.getId())
+                .executeUpdate();
+        SyncDto before = sync(user, snapshot.getToken(), null, null);
+        assertThat(before.getMessages()).extracting(MessageDto::getId)
+                .containsExactly(messages.get(0).getId(), messages.get(2).getId());
+
+        entityManager.createNativeQuery("""
+                        insert into messages (id, conversation_id, sender_id, content, created_at)
+                        values (:id, :conversationId, :senderId, 'late', :createdAt)
+                        """)
+                .setParameter("id", late.getId())
+                .setParameter("conversationId", conversation.getId())
+                .setParameter("senderId", user.getId())
+                .setParameter("createdAt", LocalDateTime.now())
+                .executeUpdate();
+        SyncDto after = sync(user, before.getToken(), null, null);
+
+        Set<Long> received = new LinkedHashSet<>(ids(before.getMessages()));
+        assertThat(newIds(after, received)).containsExactly(late.getId());
+    }
+
+    @Test
+    void returnsAConversationThatCommittedBelowTheWatermark() {
+        User user = persistUser("late-conversation");
+        SyncDto snapshot = chatService.sync(user.getId(), null);
+        Conversation late = persistConversation(user);
+        Conversation committed = persistConversation(user);
+
+        // two concurrent creates: the one with the lower id has not committed when the client syncs
+        entityManager.createNativeQuery("delete from conversation_participants where conversation_id = :id")
+                .setParameter("id", late.getId())
+                .executeUpdate();
+        SyncDto before = sync(user, snapshot.getToken(), null, null);
+        assertThat(before.getConversations()).extracting(ConversationDto::getId).containsExactly(committed.getId());
+
+        entityManager.createNativeQuery("""
+                        insert into conversation_participants (conversation_id, user_id) values (:id, :userId)
+                        """)
+                .setParameter("id", late.getId())
+                .setParameter("userId", user.getId())
+                .executeUpdate();
+        List<Long> messages = ids(persistMessages(late, user, 1));
+        SyncDto after = sync(user, before.getToken(), null, null);
+
+        assertThat(after.getConversations()).extracting(ConversationDto::getId).contains(late.getId());
+        assertThat(after.getMessages()).extracting(MessageDto::getId).containsAll(messages);
+    }
+
+    private SyncDto sync(User user, String token, Map<Long, Long> marks, Integer limit) {
+        SyncRequest request = new SyncRequest();
+        request.setToken(token);
+        request.setConversations(marks);
+        request.setLimit(limit);
+        entityManager.clear();
+        return chatService.sync(user.getId(), request);
+    }
+
+    // what a client de-duplicating by id would add
+    private List<Long> newIds(SyncDto sync, Set<Long> received) {
+        return ids(sync.getMessages()).stream().filter(id -> !received.contains(id)).toList();
+    }
+
+    private List<Long> newConversationIds(SyncDto sync, Set<Long> received) {
+        return sync.getConversations().stream()
+                .map(ConversationDto::getId)
+                .filter(id -> !received.contains(id))
+                .toList();
+    }
+
+    private List<Long> ids(List<?> messages) {
+        List<Long> ids = new ArrayList<>();
+        for (Object message : messages) {
+            ids.add(message instanceof Message entity ? entity.getId() : ((MessageDto) message).getId());
+        }
+        return ids;
+    }
+
+    private List<Message> persistMessages(Conversation detached, User detachedSender, int count) {
+        Conversation conversation = entityManager.find(Conversation.class, detached.getId());
+        User sender = entityManager.find(User.class, detachedSender.getId());
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Message message = new Message();
+            message.setConversation(conversation);
+            message.setSender(sender);
+            message.setContent("message " + i);
+            message.setSequence(conversation.nextSequence());
+            entityManager.persist(message);
+            messages.add(message);
+        }
+        entityManager.flush();
+        return messages;
+    }
+
+    private Conversation persistConversation(User user) {
+        Conversation conversation = new Conversation();
+        conversation.addParticipant(entityManager.find(User.class, user.getId()));
+        entityManager.persist(conversation);
+        entityManager.flush();
+        return conversation;
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        entityManager.persist(user);
+        return user;
+    }
+}
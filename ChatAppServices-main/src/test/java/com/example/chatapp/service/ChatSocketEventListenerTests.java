@@ -0,0 +1,94 @@
+package com.example.chatapp.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.example.chatapp.config.AsyncConfig;
+import com.example.chatapp.dto.MessageDto;
+import com.example.chatapp.dto.SendMessageRequest;
+import com.example.chatapp.entity.Conversation;
+import com.example.chatapp.entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ChatService.class, ConversationParticipantIndex.class, ChatSocketEventListener.class, AsyncConfig.class})
+class ChatSocketEventListenerTests {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private ChatSocketService chatSocketService;
+
+    @Test
+    void broadcastsAMessageOnceItsTransactionCommits() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Conversation conversation = transaction.execute(status -> seedConversation("committer"));
+        Long senderId = conversation.getParticipants().iterator().next().getId();
+
+        MessageDto sent = transaction.execute(status -> chatService.sendMessage(conversation.getId(),
+                request(senderId, "hello")));
+
+        verify(chatSocketService, timeout(5_000)).broadcastMessage(
+                argThat(message -> message.getId().equals(sent.getId())), any());
+    }
+
+    @Test
+    void dropsTheBroadcastOfARolledBackSend() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Conversation conversation = transaction.execute(status -> seedConversation("rollback"));
+        Long senderId = conversation.getParticipants().iterator().next().getId();
+
+        MessageDto rolledBack = transaction.execute(status -> {
+            MessageDto dto = chatService.sendMessage(conversation.getId(), request(senderId, "never sent"));
+            status.setRollbackOnly();
+            return dto;
+        });
+        // events are dispatched in commit order, so once this one is out the first one would be too
+        MessageDto committed = transaction.execute(status -> chatService.sendMessage(conversation.getId(),
+                request(senderId, "sent")));
+
+        verify(chatSocketService, timeout(5_000)).broadcastMessage(
+                argThat(message -> message.getId().equals(committed.getId())), any());
+        verify(chatSocketService, never()).broadcastMessage(
+                argThat(message -> message.getId().equals(rolledBack.getId())), any());
+    }
+
+    private Conversation seedConversation(String username) {
+        User user = new User();
+        user.setUsername(username + "-" + System.nanoTime());
+        user.setEmail(user.getUsername() + "@example.com");
+        entityManager.persist(user);
+
+        Conversation conversation = new Conversation();
+        conversation.addParticipant(user);
+        entityManager.persist(conversation);
+        return conversation;
+    }
+
+    private SendMessageRequest request(Long senderId, String content) {
+        SendMessageRequest request = new SendMessageRequest();
+        request.setSenderId(senderId);
+        request.setContent(content);
+        return request;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.chatapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class LongIdSetTests {
+
+    @Test
+    void containsExactlyTheGivenIds() {
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 100).map(i -> i * 7).boxed().toList());
+        ids.add(null);
+        ids.add(7L);
+        LongIdSet set = LongIdSet.of(ids);
+
+        assertThat(set.size()).isEqualTo(100);
+        for (long i = 0; i <= 800; i++) {
+            assertThat(set.contains(i)).isEqualTo(i > 0 && i % 7 == 0 && i <= 700);
+        }
+        assertThat(set.contains((Long) null)).isFalse();
+    }
+
+    @Test
+    void forEachVisitsEveryIdOnce() {
+        LongIdSet set = LongIdSet.of(Arrays.asList(3L, 1L, 2L, 3L));
+        List<Long> visited = new ArrayList<>();
+
+        set.forEach(visited::add);
+
+        assertThat(visited).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(LongIdSet.of(List.of()).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.chatapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.chatapp.dto.MessageDto;
+import com.example.chatapp.dto.SendMessageRequest;
+import com.example.chatapp.entity.Conversation;
+import com.example.chatapp.entity.ConversationReadState;
+import com.example.chatapp.entity.Message;
+import com.example.chatapp.entity.User;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest(properties = "chat.sequence-backfill.enabled=false")
+@Import({MessageSequenceBackfill.class, ChatService.class, ConversationParticipantIndex.class})
+class MessageSequenceBackfillTests {
+
+    @Autowired
+    private MessageSequenceBackfill messageSequenceBackfill;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void backfillNumbersMessagesAndReadStates() {
+        User user = persistUser("legacy");
+        Conversation conversation = persistLegacyConversation(user);
+
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Message message = new Message();
+            message.setConversation(conversation);
+            message.setSender(user);
+            message.setContent("legacy " + i);
+            entityManager.persist(message);
+            messages.add(message);
+        }
+
+        ConversationReadState state = new ConversationReadState();
+        state.setConversation(conversation);
+        state.setUser(user);
+        state.setLastReadMessageId(messages.get(1).getId());
+        entityManager.persist(state);
+        entityManager.flush();
+
+        messageSequenceBackfill.backfill(conversation);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(entityManager.find(Conversation.class, conversation.getId()).getLastSequence()).isEqualTo(4L);
+        assertThat(entityManager.find(Message.class, messages.get(3).getId()).getSequence()).isEqualTo(4L);
+        assertThat(entityManager.find(ConversationReadState.class, state.getId()).getLastReadSequence()).isEqualTo(2L);
+    }
+
+    @Test
+    void sendingToALegacyConversationLeavesTheNumberingToTheBackfill() {
+        User user = persistUser("sender");
+        Conversation conversation = persistLegacyConversation(user);
+        Message legacy = new Message();
+        legacy.setConversation(conversation);
+        legacy.setSender(user);
+        legacy.setContent("before sequences");
+        entityManager.persist(legacy);
+        entityManager.flush();
+        entityManager.clear();
+
+        SendMessageRequest request = new SendMessageRequest();
+        request.setSenderId(user.getId());
+        request.setContent("after sequences");
+        MessageDto sent = chatService.sendMessage(conversation.getId(), request);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(entityManager.find(Message.class, sent.getId()).getSequence()).isNull();
+        assertThat(entityManager.find(Message.class, legacy.getId()).getSequence()).isNull();
+        assertThat(entityManager.find(Conversation.class, conversation.getId()).getLastSequence()).isNull();
+
+        messageSequenceBackfill.backfill(entityManager.find(Conversation.class, conversation.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(entityManager.find(Message.class, legacy.getId()).getSequence()).isEqualTo(1L);
+        assertThat(entityManager.find(Message.class, sent.getId()).getSequence()).isEqualTo(2L);
+        assertThat(entityManager.find(Conversation.class, conversation.getId()).getLastSequence()).isEqualTo(2L);
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        entityManager.persist(user);
+        return user;
+    }
+
+    private Conversation persistLegacyConversation(User participant) {
+        Conversation conversation = new Conversation();
+        conversation.addParticipant(participant);
+        entityManager.persist(conversation);
+        conversation.setLastSequence(null);
+        return conversation;
+    }
+}
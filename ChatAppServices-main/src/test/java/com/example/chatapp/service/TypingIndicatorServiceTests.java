@@ -0,0 +1,73 @@
+package com.example.chatapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.chatapp.dto.UserDto;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TypingIndicatorServiceTests {
+
+    private static final long CONVERSATION_ID = 7L;
+
+    private final ConversationParticipantIndex participantIndex = mock(ConversationParticipantIndex.class);
+    private final ChatSocketService chatSocketService = mock(ChatSocketService.class);
+    private final UserDto user = new UserDto(1L, "typist", "typist@example.com");
+    private TypingIndicatorService typingService;
+
+    TypingIndicatorServiceTests() {
+        when(participantIndex.isParticipant(eq(CONVERSATION_ID), any())).thenReturn(true);
+        when(participantIndex.getParticipantIds(CONVERSATION_ID)).thenReturn(LongIdSet.of(List.of(1L, 2L)));
+    }
+
+    @AfterEach
+    void shutdown() {
+        typingService.shutdown();
+    }
+
+    @Test
+    void coalescesRepeatedTypingSignalsWithinTheThrottleWindow() {
+        typingService = new TypingIndicatorService(participantIndex, chatSocketService, 10_000, 10_000);
+
+        typingService.handleTypingSignal(CONVERSATION_ID, user, true);
+        typingService.handleTypingSignal(CONVERSATION_ID, user, true);
+        typingService.handleTypingSignal(CONVERSATION_ID, user, true);
+
+        verify(chatSocketService, times(1)).broadcastTyping(any(), any(), eq(1L));
+        assertThat(typingService.pendingExpiries()).isEqualTo(1);
+    }
+
+    @Test
+    void endsATypingStateThatIsNotRefreshedInTime() {
+        typingService = new TypingIndicatorService(participantIndex, chatSocketService, 10_000, 100);
+
+        typingService.handleTypingSignal(CONVERSATION_ID, user, true);
+
+        verify(chatSocketService, timeout(5_000)).broadcastTyping(
+                argThat(typing -> !typing.isTyping() && typing.getUserId().equals(1L)), any(), eq(1L));
+        assertThat(typingService.pendingExpiries()).isZero();
+    }
+
+    @Test
+    void restartingWithinTheTimeoutKeepsASingleExpiry() {
+        typingService = new TypingIndicatorService(participantIndex, chatSocketService, 0, 10_000);
+
+        typingService.handleTypingSignal(CONVERSATION_ID, user, true);
+        typingService.handleTypingSignal(CONVERSATION_ID, user, false);
+        assertThat(typingService.pendingExpiries()).isZero();
+        typingService.handleTypingSignal(CONVERSATION_ID, user, true);
+
+        assertThat(typingService.pendingExpiries()).isEqualTo(1);
+        verify(chatSocketService, times(2)).broadcastTyping(argThat(typing -> typing.isTyping()), any(), eq(1L));
+        verify(chatSocketService, times(1)).broadcastTyping(argThat(typing -> !typing.isTyping()), any(), eq(1L));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.chatapp.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.chatapp.websocket.OutboundSessionQueue.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+class OutboundSessionQueueTests {
+
+    private final List<Runnable> pendingDrains = new ArrayList<>();
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    OutboundSessionQueueTests() {
+        when(session.isOpen()).thenReturn(true);
+        when(session.getId()).thenReturn("session-1");
+    }
+
+    @Test
+    void enqueueDoesNotWriteOnCallingThread() throws Exception {
+        OutboundSessionQueue queue = queue(OverflowPolicy.DISCONNECT, 4);
+
+        assertThat(queue.enqueue(new TextMessage("hello"), false)).isTrue();
+
+        verify(session, never()).sendMessage(any());
+        assertThat(pendingDrains).hasSize(1);
+        pendingDrains.get(0).run();
+        verify(session).sendMessage(new TextMessage("hello"));
+        assertThat(queue.size()).isZero();
+        assertThat(meterRegistry.get("chat.socket.send").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void dropTypingDiscardsTypingFramesFirst() {
+        OutboundSessionQueue queue = queue(OverflowPolicy.DROP_TYPING, 2);
+
+        queue.enqueue(new TextMessage("typing"), true);
+        queue.enqueue(new TextMessage("message-1"), false);
+        assertThat(queue.enqueue(new TextMessage("message-2"), false)).isTrue();
+
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(meterRegistry.get("chat.socket.frames.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void disconnectClosesSessionOnOverflow() throws Exception {
+        OutboundSessionQueue queue = queue(OverflowPolicy.DISCONNECT, 1);
+
+        queue.enqueue(new TextMessage("message-1"), false);
+        assertThat(queue.enqueue(new TextMessage("message-2"), false)).isFalse();
+
+        verify(session).close(any(CloseStatus.class));
+        assertThat(meterRegistry.get("chat.socket.disconnects").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sendTimeLimitCheckClosesSessionStuckInASend() throws Exception {
+        OutboundSessionQueue queue = queue(OverflowPolicy.DISCONNECT, 4, 50, 32);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+
+        queue.enqueue(new TextMessage("hello"), false);
+        Thread writer = new Thread(pendingDrains.get(0));
+        writer.start();
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(queue.checkSendTimeLimit()).isFalse();
+        Thread.sleep(100);
+        assertThat(queue.checkSendTimeLimit()).isTrue();
+        verify(session).close(any(CloseStatus.class));
+        assertThat(meterRegistry.get("chat.socket.disconnects").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        writer.join(5_000);
+    }
+
+    @Test
+    void drainWritesAtMostFramesPerDrainAndResubmits() throws Exception {
+        OutboundSessionQueue queue = queue(OverflowPolicy.DISCONNECT, 16, 10_000, 2);
+        for (int i = 0; i < 5; i++) {
+            queue.enqueue(new TextMessage("message-" + i), false);
+        }
+        assertThat(pendingDrains).hasSize(1);
+
+        pendingDrains.get(0).run();
+        verify(session, times(2)).sendMessage(any());
+        assertThat(queue.size()).isEqualTo(3);
+        assertThat(pendingDrains).hasSize(2);
+
+        pendingDrains.get(1).run();
+        pendingDrains.get(2).run();
+        verify(session, times(5)).sendMessage(any());
+        assertThat(queue.size()).isZero();
+        // the last turn found the queue empty and did not resubmit
+        assertThat(pendingDrains).hasSize(3);
+    }
+
+    private OutboundSessionQueue queue(OverflowPolicy policy, int capacity) {
+        return queue(policy, capacity, 10_000, 32);
+    }
+
+    private OutboundSessionQueue queue(OverflowPolicy policy, int capacity, long sendTimeLimitMillis,
+                                       int framesPerDrain) {
+        return new OutboundSessionQueue(session, pendingDrains::add, sendTimeLimitMillis, 1024 * 1024, capacity,
+                framesPerDrain, policy, SocketFrameEncoding.JSON, OutboundQueueMetrics.register(meterRegistry));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.chatapp.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.chatapp.dto.SocketEvent;
+import com.example.chatapp.websocket.SocketFrameCodec.EncodedFrame;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+class SocketFrameCodecTests {
+
+    private final SocketFrameCodec codec = new SocketFrameCodec(new ObjectMapper());
+
+    @Test
+    void jsonSessionsShareOneTextFrame() throws Exception {
+        EncodedFrame frame = codec.encode(new SocketEvent<>("status", "connected"));
+
+        WebSocketMessage<?> first = frame.forEncoding(SocketFrameEncoding.JSON);
+
+        assertThat(first).isInstanceOf(TextMessage.class);
+        assertThat(frame.forEncoding(SocketFrameEncoding.JSON)).isSameAs(first);
+    }
+
+    @Test
+    void cborFramesRoundTripWithIndependentBuffers() throws Exception {
+        EncodedFrame frame = codec.encode(new SocketEvent<>("status", "connected"));
+
+        BinaryMessage first = (BinaryMessage) frame.forEncoding(SocketFrameEncoding.CBOR);
+        BinaryMessage second = (BinaryMessage) frame.forEncoding(SocketFrameEncoding.CBOR);
+        first.getPayload().position(first.getPayloadLength());
+
+        JsonNode decoded = codec.decode(second);
+        assertThat(decoded.path("type").asText()).isEqualTo("status");
+        assertThat(decoded.path("payload").asText()).isEqualTo("connected");
+    }
+}
@@ -29,6 +29,8 @@ const ChatScreen = ({ route, navigation }) => {
   const [isConnected, setIsConnected] = useState(false);
   const stompClientRef = useRef(null);
   const flatListRef = useRef(null);
+  const hasOlderRef = useRef(true);
+  const loadingOlderRef = useRef(false);
   const [showMenu, setShowMenu] = useState(false);
 
   const options = [
@@ -67,12 +69,13 @@ const ChatScreen = ({ route, navigation }) => {
     }, [convid])
   );
 
-  // Fetch chat history
+  // Fetch the newest page of chat history
   const loadOldMessages = async (conversationID) => {
     try {
       const res = await api.get(
         `/getPvtMessages?Convid=${conversationID}`
       );
+      hasOlderRef.current = res.data.length > 0;
       setMessages(res.data.reverse());
 
     } catch (e) {
@@ -80,6 +83,24 @@ const ChatScreen = ({ route, navigation }) => {
     }
   };
 
+  // Fetch the page before the oldest loaded message when scrolling up
+  const loadOlderMessages = async () => {
+    const oldest = messages[messages.length - 1];
+    if (loadingOlderRef.current || !hasOlderRef.current || !oldest?.messageID) return;
+    loadingOlderRef.current = true;
+    try {
+      const res = await api.get(
+        `/getPvtMessages?Convid=${convid}&before=${oldest.messageID}`
+      );
+      hasOlderRef.current = res.data.length > 0;
+      setMessages((prev) => [...prev, ...res.data.reverse()]);
+    } catch (e) {
+      console.log("Error loading older messages:", e);
+    } finally {
+      loadingOlderRef.current = false;
+    }
+  };
+
   // Setup STOMP WebSocket
   const setupWebSocket = (conversationID) => {
     const socket = new SockJS("http://192.168.0.107:8080/ws");
@@ -87,21 +108,20 @@ const ChatScreen = ({ route, navigation }) => {
     const stompClient = new Client({
       webSocketFactory: () => socket,
       reconnectDelay: 5000,
+      connectHeaders: { username: username },
 
       onConnect: () => {
         console.log("STOMP Connected");
         setIsConnected(true);
 
-        stompClient.subscribe("/topic/public", (msg) => {
+        stompClient.subscribe(`/topic/conversation.${conversationID}`, (msg) => {
           const newMsg = JSON.parse(msg.body);
 
-          if (newMsg.conversationID == conversationID) {
-            setMessages((prev) => {
-              const updated = [newMsg, ...prev];
-              setTimeout(scrollToBottom, 50);
-              return updated;
-            });
-          }
+          setMessages((prev) => {
+            const updated = [newMsg, ...prev];
+            setTimeout(scrollToBottom, 50);
+            return updated;
+          });
         });
       },
 
@@ -221,9 +241,15 @@ const ChatScreen = ({ route, navigation }) => {
           ]}
         >
           {/* Image bubble */}
-          {item.chatimage && (
+          {(item.chatimageRef || item.hasInlineImage || item.chatimage) && (
             <Image
-              source={{ uri: "data:image/png;base64," + item.chatimage }}
+              source={{
+                uri: item.chatimageRef
+                  ? `${api.defaults.baseURL}/blobs/${item.chatimageRef}`
+                  : item.hasInlineImage
+                  ? `${api.defaults.baseURL}/messages/${item.messageID}/image`
+                  : "data:image/png;base64," + item.chatimage,
+              }}
               style={{ width: 180, height: 120, borderRadius: 12 }}
             />
           )}
@@ -269,6 +295,8 @@ const ChatScreen = ({ route, navigation }) => {
         renderItem={renderBubble}
         keyExtractor={(item, index) => index.toString()}
         inverted
+        onEndReached={loadOlderMessages}
+        onEndReachedThreshold={0.3}
         contentContainerStyle={{ padding: 15, paddingBottom: 80 }}
       />
 
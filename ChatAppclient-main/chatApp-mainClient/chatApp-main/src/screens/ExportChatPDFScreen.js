@@ -12,6 +12,7 @@ import {
 import DateTimePicker from "@react-native-community/datetimepicker";
 import Ionicons from "react-native-vector-icons/Ionicons";
 import RNFS from "react-native-fs";
+import api from "../services/api";
 
 const ExportChatPDFScreen = ({ navigation, route }) => {
   const { convid, username } = route.params;
@@ -87,19 +88,25 @@ const ExportChatPDFScreen = ({ navigation, route }) => {
     // const backgroundKey = backgroundMap[selectedBg];
     const loggedUser = username;
 
-    const url = 
-      `http://192.168.0.107:8080/api/auth/chat-pdf` +
-      `?conversationID=${convid}` +
-      `&date=${formattedFromDate}` +
-      `&loggedUser=${loggedUser}`;
-
     try {
-      console.log("Downloading PDF from:", url);
+      // the server renders in the background; poll the job until the file is ready
+      const { data: submitted } = await api.post(
+        `/exports?conversationID=${convid}&date=${formattedFromDate}&loggedUser=${loggedUser}&format=pdf`
+      );
+      let job = submitted;
+      while (job.status === "QUEUED" || job.status === "RUNNING") {
+        await new Promise((resolve) => setTimeout(resolve, 1000));
+        job = (await api.get(`/exports/${job.id}`)).data;
+      }
+      if (job.status !== "DONE") {
+        alert(job.error || "Failed to export PDF");
+        return;
+      }
 
       const filePath = `${RNFS.DownloadDirectoryPath}/chat_export_${Date.now()}.pdf`;
 
       const download = await RNFS.downloadFile({
-        fromUrl: url,
+        fromUrl: `${api.defaults.baseURL}/exports/${job.id}/file`,
         toFile: filePath,
       }).promise;
 